@@ -0,0 +1,55 @@
+#!/bin/sh
+# Compara el tiempo de arranque del juego y del trabajador del simulador empaquetados de distintas formas:
+# JAR normal, JAR con archivo CDS de la aplicación y ejecutable nativo (si existen).
+# Cada ejecución del juego entra en el menú principal y sale, así que mide sobre todo el arranque.
+# Cada ejecución del trabajador simula un fragmento pequeño de partidas, como los que lanza el coordinador.
+# Uso: comparar-arranque.sh <directorio dist> [repeticiones] [partidas por fragmento]
+
+DIST="${1:-dist}"
+REPETICIONES="${2:-10}"
+PARTIDAS="${3:-100}"
+JAVA="${JAVA:-java}"
+TEMPORAL=$(mktemp -d)
+trap 'rm -rf "$TEMPORAL"' EXIT
+TRABAJADOR="--trabajador 0 $PARTIDAS 4 $TEMPORAL/parcial.dat"
+
+medir() {
+    nombre="$1"
+    shift
+    total=0
+    i=0
+    while [ "$i" -lt "$REPETICIONES" ]; do
+        inicio=$(date +%s%N)
+        printf '2\n' | "$@" > /dev/null 2>&1
+        fin=$(date +%s%N)
+        total=$((total + (fin - inicio) / 1000000))
+        i=$((i + 1))
+    done
+    echo "$nombre: $((total / REPETICIONES)) ms de media ($REPETICIONES ejecuciones)"
+}
+
+echo "Juego:"
+medir "JAR" "$JAVA" -Xshare:auto -jar "$DIST/JavaDominoes.jar"
+if [ -f "$DIST/JavaDominoes.jsa" ]; then
+    medir "JAR + AppCDS" "$JAVA" -XX:SharedArchiveFile="$DIST/JavaDominoes.jsa" -jar "$DIST/JavaDominoes.jar"
+else
+    echo "JAR + AppCDS: no hay archivo $DIST/JavaDominoes.jsa (ejecuta el objetivo cds)"
+fi
+if [ -x "$DIST/JavaDominoes" ]; then
+    medir "Nativo" "$DIST/JavaDominoes"
+else
+    echo "Nativo: no hay ejecutable $DIST/JavaDominoes (ejecuta el objetivo native-image)"
+fi
+
+echo "Trabajador del simulador ($PARTIDAS partidas):"
+medir "JAR" "$JAVA" -Xshare:auto -cp "$DIST/JavaDominoes.jar" juegodomino.Simulador $TRABAJADOR
+if [ -f "$DIST/JavaDominoesSimulador.jsa" ]; then
+    medir "JAR + AppCDS" "$JAVA" -XX:SharedArchiveFile="$DIST/JavaDominoesSimulador.jsa" -cp "$DIST/JavaDominoes.jar" juegodomino.Simulador $TRABAJADOR
+else
+    echo "JAR + AppCDS: no hay archivo $DIST/JavaDominoesSimulador.jsa (ejecuta el objetivo cds-simulador)"
+fi
+if [ -x "$DIST/JavaDominoesSimulador" ]; then
+    medir "Nativo" "$DIST/JavaDominoesSimulador" $TRABAJADOR
+else
+    echo "Nativo: no hay ejecutable $DIST/JavaDominoesSimulador (ejecuta el objetivo native-image-simulador)"
+fi
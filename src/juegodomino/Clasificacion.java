@@ -0,0 +1,574 @@
+package juegodomino;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Clasificación Elo persistente de los jugadores, identificados por su nombre.
+ * <p>
+ * Se guarda en dos ficheros dentro de un directorio: un registro en el que solo se añaden los resultados de las partidas,
+ * en el orden en que se jugaron, y una tabla de puntuaciones de registros de tamaño fijo proyectada en memoria.
+ * La tabla es una tabla hash de direccionamiento abierto por nombre, así que consultar la puntuación de un jugador
+ * no depende del número de jugadores, y los cambios llegan al fichero sin necesidad de reescribirlo.
+ * <p>
+ * La cabecera de la tabla guarda hasta qué byte del registro se han aplicado los resultados, y cada jugador guarda la
+ * posición en el registro del último resultado que se le aplicó. Al abrir la clasificación y antes de registrar nuevos
+ * resultados se aplican los que falten, saltándose a los jugadores que ya los tengan, así que la tabla se recupera aunque
+ * un proceso termine a mitad de un resultado, y se reconstruye entera si se borra.
+ * Varios procesos pueden usar la misma clasificación a la vez: cada lote de resultados se registra con el fichero de la
+ * tabla bloqueado. Dentro de un mismo proceso no se debe abrir más de una vez el mismo directorio.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class Clasificacion implements Closeable {
+    /**
+     * Nombre del fichero de la tabla de puntuaciones.
+     */
+    public static final String FICHERO_TABLA = "clasificacion.dat";
+    /**
+     * Nombre del fichero del registro de resultados.
+     */
+    public static final String FICHERO_REGISTRO = "resultados.log";
+    /**
+     * Número de jugadores que caben en la tabla si no se indica otro.
+     */
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+    /**
+     * Puntuación que tiene un jugador antes de jugar su primera partida.
+     */
+    public static final double PUNTUACION_INICIAL = 1500;
+    /**
+     * Máximo de puntos que puede ganar o perder un jugador en una partida.
+     */
+    private static final double FACTOR_K = 32;
+    /**
+     * Número máximo de bytes (en UTF-8) del nombre de un jugador, que se guarda entero en la tabla.
+     */
+    public static final int MAX_BYTES_NOMBRE = 46;
+
+    // Formato de la tabla: una cabecera y registros de TAM_REGISTRO bytes. Cada registro tiene dos huecos para los datos
+    // del jugador: el activo y el que tenía antes del último resultado. POS_ESTADO guarda la posición en el registro de
+    // resultados del último que se le aplicó (-1 si ninguno), multiplicada por dos, más el número del hueco activo
+    private static final int MAGICO = 0x444F4D33;  // "DOM3"
+    private static final int MAGICO_DOM1 = 0x444F4D31;  // Versiones anteriores, con registros de 64 bytes
+    private static final int MAGICO_DOM2 = 0x444F4D32;
+    private static final int TAM_CABECERA = 16;
+    private static final int POS_CAPACIDAD = 4;
+    private static final int POS_REGISTRO_APLICADO = 8;
+    private static final int TAM_REGISTRO = 88;
+    private static final int POS_OCUPADO = 0;
+    private static final int POS_LONGITUD_NOMBRE = 1;
+    private static final int POS_NOMBRE = 2;
+    private static final int POS_ESTADO = 48;
+    private static final int POS_DATOS = 56;
+    private static final int TAM_DATOS = 16;
+    private static final int POS_PUNTUACION = 0;
+    private static final int POS_PARTIDAS = 8;
+    private static final int POS_VICTORIAS = 12;
+
+    private final RandomAccessFile ficheroTabla;
+    private final MappedByteBuffer tabla;
+    private final int capacidad;
+    private final RandomAccessFile registro;
+
+    /**
+     * Resultado de una partida: quiénes la ganaron y quiénes la perdieron.
+     */
+    public static final class Resultado {
+        private final List<String> ganadores;
+        private final List<String> perdedores;
+
+        /**
+         * Crea un resultado.
+         * @param ganadores Los nombres de los jugadores que ganaron la partida.
+         * @param perdedores Los nombres de los jugadores que la perdieron.
+         */
+        public Resultado(List<String> ganadores, List<String> perdedores) {
+            this.ganadores = Collections.unmodifiableList(new ArrayList<>(ganadores));
+            this.perdedores = Collections.unmodifiableList(new ArrayList<>(perdedores));
+        }
+
+        /**
+         * Obtiene los nombres de los ganadores.
+         * @return Los nombres de los ganadores.
+         */
+        public List<String> getGanadores() {
+            return ganadores;
+        }
+
+        /**
+         * Obtiene los nombres de los perdedores.
+         * @return Los nombres de los perdedores.
+         */
+        public List<String> getPerdedores() {
+            return perdedores;
+        }
+    }
+
+    /**
+     * Abre la clasificación guardada en un directorio, creándola si no existe, con la capacidad por defecto.
+     * @param directorio El directorio donde están los ficheros de la clasificación.
+     * @throws IOException Si no se pueden abrir o crear los ficheros.
+     */
+    public Clasificacion(File directorio) throws IOException {
+        this(directorio, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Abre la clasificación guardada en un directorio, creándola si no existe.
+     * Si la tabla no existe, está a medio crear o es de una versión anterior, se crea de nuevo a partir del registro.
+     * @param directorio El directorio donde están los ficheros de la clasificación.
+     * @param capacidad El número de jugadores que caben en la tabla, si hay que crearla. Si ya existe, se usa la suya.
+     * @throws IOException Si no se pueden abrir o crear los ficheros, la tabla existente no es válida o los jugadores del
+     * registro no caben en la tabla que hay que crear.
+     */
+    public Clasificacion(File directorio, int capacidad) throws IOException {
+        this.registro = new RandomAccessFile(new File(directorio, FICHERO_REGISTRO), "rw");
+        File f = new File(directorio, FICHERO_TABLA);
+        RandomAccessFile t;
+
+        try {
+            t = new RandomAccessFile(f, "rw");
+        } catch (IOException exc) {
+            registro.close();
+            throw exc;
+        }
+        this.ficheroTabla = t;
+
+        try {
+            FileLock cerrojo = ficheroTabla.getChannel().lock();
+            try {
+                // Mirar si hay que crear la tabla con el fichero ya bloqueado, por si otro proceso la está creando
+                boolean nueva = ficheroTabla.length() < TAM_CABECERA;
+                int capacidadTabla = capacidad;
+
+                if (!nueva) {
+                    int magico = ficheroTabla.readInt();
+                    int capacidadFichero = ficheroTabla.readInt();
+
+                    if (magico == MAGICO) {
+                        capacidadTabla = capacidadFichero;
+                    } else if (magico == 0 || magico == MAGICO_DOM1 || magico == MAGICO_DOM2) {
+                        // Una tabla a medio crear o de una versión anterior se vuelve a crear, sin perder capacidad
+                        capacidadTabla = Math.max(capacidad, capacidadFichero);
+                        ficheroTabla.setLength(0);
+                        nueva = true;
+                    } else {
+                        throw new IOException("El fichero " + f + " no es una tabla de clasificación.");
+                    }
+                }
+                this.capacidad = capacidadTabla;
+
+                this.tabla = ficheroTabla.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                        TAM_CABECERA + (long) this.capacidad * TAM_REGISTRO);
+                if (nueva) {
+                    // El número mágico se escribe al final, para que una tabla a medio crear se vuelva a crear
+                    tabla.putInt(POS_CAPACIDAD, this.capacidad);
+                    tabla.putLong(POS_REGISTRO_APLICADO, 0);
+                    try {
+                        aplicarRegistro();
+                    } catch (IllegalStateException exc) {
+                        throw new IOException("Los jugadores del registro no caben en una tabla de " + this.capacidad
+                                + " jugadores.", exc);
+                    }
+                    tabla.putInt(0, MAGICO);
+                } else {
+                    aplicarRegistro();
+                }
+            } finally {
+                cerrojo.release();
+            }
+        } catch (IOException | RuntimeException exc) {
+            try {
+                registro.close();
+            } finally {
+                ficheroTabla.close();
+            }
+            throw exc;
+        }
+    }
+
+    /**
+     * Registra el resultado de una partida y actualiza las puntuaciones de sus jugadores.
+     * @param r El resultado de la partida.
+     * @throws IOException Si no se puede escribir en el registro de resultados.
+     */
+    public void registrar(Resultado r) throws IOException {
+        registrar(Collections.singletonList(r));
+    }
+
+    /**
+     * Registra los resultados de varias partidas y actualiza las puntuaciones de sus jugadores.
+     * Con la tabla bloqueada, primero se aplican los resultados que otros procesos hayan dejado sin aplicar y se crean los
+     * registros de los jugadores nuevos; después se escriben todos los resultados en el registro y por último se aplican
+     * a la tabla, uno a uno y en el mismo orden. Si algún jugador no cabe en la tabla, no se registra ningún resultado,
+     * aunque los jugadores que sí cupieron quedan en la tabla sin partidas.
+     * @param resultados Los resultados de las partidas, en el orden en que se jugaron.
+     * @throws IOException Si no se puede escribir en el registro de resultados.
+     * @throws IllegalArgumentException Si algún nombre no cabe en la tabla (ver {@link #nombreValido(String)}), o aparece
+     * más de una vez en un mismo resultado.
+     * @throws IllegalStateException Si no caben más jugadores en la tabla.
+     */
+    public synchronized void registrar(Collection<Resultado> resultados)
+            throws IOException, IllegalArgumentException, IllegalStateException {
+        long instante = System.currentTimeMillis();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream lote = new DataOutputStream(bytes);
+        int[] inicios = new int[resultados.size() + 1];
+        int k = 0;
+
+        for (Resultado r : resultados) {
+            comprobarNombres(r);
+            inicios[k++] = lote.size();
+            lote.writeLong(instante);
+            escribirNombres(lote, r.getGanadores());
+            escribirNombres(lote, r.getPerdedores());
+        }
+        inicios[k] = lote.size();
+
+        FileLock cerrojo = ficheroTabla.getChannel().lock();
+        try {
+            aplicarRegistro();
+            for (Resultado r : resultados) {
+                posiciones(r.getGanadores());
+                posiciones(r.getPerdedores());
+            }
+
+            long fin = registro.length();
+            registro.seek(fin);
+            registro.write(bytes.toByteArray());
+            registro.getChannel().force(false);
+
+            k = 0;
+            for (Resultado r : resultados) {
+                aplicarResultado(r, fin + inicios[k]);
+                tabla.putLong(POS_REGISTRO_APLICADO, fin + inicios[++k]);
+            }
+        } finally {
+            cerrojo.release();
+        }
+    }
+
+    /**
+     * Indica si un nombre de jugador se puede guardar en la clasificación.
+     * @param nombre El nombre del jugador.
+     * @return {@code true} si su codificación en UTF-8 no pasa de {@link #MAX_BYTES_NOMBRE} bytes, {@code false} si no.
+     */
+    public static boolean nombreValido(String nombre) {
+        return nombre.getBytes(StandardCharsets.UTF_8).length <= MAX_BYTES_NOMBRE;
+    }
+
+    /**
+     * Obtiene la puntuación de un jugador.
+     * @param nombre El nombre del jugador.
+     * @return Su puntuación, o {@link #PUNTUACION_INICIAL} si todavía no jugó ninguna partida.
+     */
+    public synchronized double getPuntuacion(String nombre) {
+        int pos = nombreValido(nombre) ? buscar(codificarNombre(nombre), false) : -1;
+        return pos < 0 ? PUNTUACION_INICIAL : tabla.getDouble(datosActivos(pos) + POS_PUNTUACION);
+    }
+
+    /**
+     * Obtiene el número de partidas registradas de un jugador.
+     * @param nombre El nombre del jugador.
+     * @return El número de partidas que jugó.
+     */
+    public synchronized int getPartidas(String nombre) {
+        int pos = nombreValido(nombre) ? buscar(codificarNombre(nombre), false) : -1;
+        return pos < 0 ? 0 : tabla.getInt(datosActivos(pos) + POS_PARTIDAS);
+    }
+
+    /**
+     * Obtiene el número de partidas ganadas de un jugador.
+     * @param nombre El nombre del jugador.
+     * @return El número de partidas que ganó.
+     */
+    public synchronized int getVictorias(String nombre) {
+        int pos = nombreValido(nombre) ? buscar(codificarNombre(nombre), false) : -1;
+        return pos < 0 ? 0 : tabla.getInt(datosActivos(pos) + POS_VICTORIAS);
+    }
+
+    /**
+     * Guarda en disco los cambios pendientes y cierra los ficheros de la clasificación.
+     * @throws IOException Si hay errores al cerrar los ficheros.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            registro.close();
+            tabla.force();
+        } finally {
+            ficheroTabla.close();
+        }
+    }
+
+    /**
+     * Aplica a la tabla los resultados del registro que todavía no se aplicaron. Si el registro termina con un resultado
+     * a medio escribir, lo descarta. Hay que llamarlo con la tabla bloqueada.
+     * @throws IOException Si no se puede leer el registro.
+     * @throws IllegalStateException Si algún jugador del registro no cabe en la tabla.
+     */
+    private void aplicarRegistro() throws IOException, IllegalStateException {
+        long aplicado = tabla.getLong(POS_REGISTRO_APLICADO);
+        long fin = registro.length();
+
+        registro.seek(aplicado);
+        while (aplicado < fin) {
+            Resultado r;
+            try {
+                registro.readLong();
+                List<String> ganadores = leerNombres();
+                List<String> perdedores = leerNombres();
+                r = new Resultado(ganadores, perdedores);
+            } catch (EOFException exc) {
+                registro.setLength(aplicado);
+                r = null;
+                fin = aplicado;
+            }
+
+            if (r != null) {
+                aplicarResultado(r, aplicado);
+                aplicado = registro.getFilePointer();
+                tabla.putLong(POS_REGISTRO_APLICADO, aplicado);
+            }
+        }
+    }
+
+    /**
+     * Actualiza las puntuaciones con el resultado de una partida. Cada ganador se enfrenta con cada perdedor, y los
+     * cambios de cada enfrentamiento se dividen entre el número de rivales que tiene cada jugador en la partida, así que
+     * lo que ganan unos es lo que pierden otros.
+     * Los jugadores que ya tienen aplicado el resultado, porque un proceso terminó mientras lo aplicaba, no cambian,
+     * pero cuentan con la puntuación que tenían antes para calcular el cambio de los demás.
+     * @param r El resultado de la partida.
+     * @param inicio La posición del resultado en el registro.
+     */
+    private void aplicarResultado(Resultado r, long inicio) {
+        int[] ganadores = posiciones(r.getGanadores());
+        int[] perdedores = posiciones(r.getPerdedores());
+        double[] cambioGanadores = new double[ganadores.length];
+        double[] cambioPerdedores = new double[perdedores.length];
+        int rivales = ganadores.length + perdedores.length - 1;
+
+        for (int i = 0; i < ganadores.length; ++i) {
+            double pg = tabla.getDouble(datosAntes(ganadores[i], inicio) + POS_PUNTUACION);
+            for (int k = 0; k < perdedores.length; ++k) {
+                double pp = tabla.getDouble(datosAntes(perdedores[k], inicio) + POS_PUNTUACION);
+                double esperado = 1 / (1 + Math.pow(10, (pp - pg) / 400));
+                double cambio = FACTOR_K * (1 - esperado);
+                cambioGanadores[i] += cambio / rivales;
+                cambioPerdedores[k] -= cambio / rivales;
+            }
+        }
+
+        for (int i = 0; i < ganadores.length; ++i) {
+            aplicarCambio(ganadores[i], inicio, cambioGanadores[i], true);
+        }
+        for (int k = 0; k < perdedores.length; ++k) {
+            aplicarCambio(perdedores[k], inicio, cambioPerdedores[k], false);
+        }
+    }
+
+    /**
+     * Aplica un cambio de puntuación al registro de un jugador, y le cuenta una partida más, si no tiene ya aplicado el
+     * resultado. Los nuevos datos se escriben en el hueco inactivo, y después se activa ese hueco con una sola escritura,
+     * así que si el proceso termina a medias el jugador queda como estaba.
+     * @param pos La posición del registro en la tabla.
+     * @param inicio La posición del resultado en el registro de resultados.
+     * @param cambio Los puntos a sumar (o restar, si es negativo).
+     * @param victoria {@code true} si ganó la partida, {@code false} si no.
+     */
+    private void aplicarCambio(int pos, long inicio, double cambio, boolean victoria) {
+        long estado = tabla.getLong(pos + POS_ESTADO);
+
+        if (estado >> 1 < inicio) {
+            int hueco = (int) (~estado & 1);
+            int activos = pos + POS_DATOS + (int) (estado & 1) * TAM_DATOS;
+            int nuevos = pos + POS_DATOS + hueco * TAM_DATOS;
+
+            tabla.putDouble(nuevos + POS_PUNTUACION, tabla.getDouble(activos + POS_PUNTUACION) + cambio);
+            tabla.putInt(nuevos + POS_PARTIDAS, tabla.getInt(activos + POS_PARTIDAS) + 1);
+            tabla.putInt(nuevos + POS_VICTORIAS, tabla.getInt(activos + POS_VICTORIAS) + (victoria ? 1 : 0));
+            tabla.putLong(pos + POS_ESTADO, inicio << 1 | hueco);
+        }
+    }
+
+    /**
+     * Obtiene dónde están los datos activos de un jugador.
+     * @param pos La posición de su registro en la tabla.
+     * @return La posición en la tabla del hueco activo.
+     */
+    private int datosActivos(int pos) {
+        return pos + POS_DATOS + (int) (tabla.getLong(pos + POS_ESTADO) & 1) * TAM_DATOS;
+    }
+
+    /**
+     * Obtiene dónde están los datos que tenía un jugador antes de aplicarle un resultado.
+     * @param pos La posición de su registro en la tabla.
+     * @param inicio La posición del resultado en el registro de resultados.
+     * @return La posición en la tabla del hueco inactivo si ya tiene aplicado el resultado, o la del activo si no.
+     */
+    private int datosAntes(int pos, long inicio) {
+        long estado = tabla.getLong(pos + POS_ESTADO);
+        long hueco = estado >> 1 >= inicio ? ~estado & 1 : estado & 1;
+        return pos + POS_DATOS + (int) hueco * TAM_DATOS;
+    }
+
+    /**
+     * Obtiene las posiciones en la tabla de los registros de unos jugadores, creándolos si no existen.
+     * @param nombres Los nombres de los jugadores.
+     * @return Las posiciones de sus registros.
+     */
+    private int[] posiciones(List<String> nombres) {
+        int[] toret = new int[nombres.size()];
+
+        for (int i = 0; i < toret.length; ++i) {
+            toret[i] = buscar(codificarNombre(nombres.get(i)), true);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Busca el registro de un jugador por su nombre, con sondeo lineal a partir de su valor hash.
+     * @param nombre El nombre del jugador, codificado.
+     * @param crear {@code true} si se debe crear el registro en caso de no existir, {@code false} si no.
+     * @return La posición del registro en la tabla, o {@code -1} si no existe y no se creó.
+     * @throws IllegalStateException Si hay que crear el registro y la tabla está llena.
+     */
+    private int buscar(byte[] nombre, boolean crear) throws IllegalStateException {
+        int toret = -1;
+        int i = (Arrays.hashCode(nombre) & 0x7FFFFFFF) % capacidad;
+        int probados = 0;
+
+        while (toret < 0 && probados < capacidad) {
+            int pos = TAM_CABECERA + i * TAM_REGISTRO;
+
+            if (tabla.get(pos + POS_OCUPADO) == 0) {
+                if (crear) {
+                    tabla.put(pos + POS_LONGITUD_NOMBRE, (byte) nombre.length);
+                    for (int k = 0; k < nombre.length; ++k) {
+                        tabla.put(pos + POS_NOMBRE + k, nombre[k]);
+                    }
+                    tabla.putLong(pos + POS_ESTADO, -1L << 1);
+                    tabla.putDouble(pos + POS_DATOS + POS_PUNTUACION, PUNTUACION_INICIAL);
+                    tabla.putInt(pos + POS_DATOS + POS_PARTIDAS, 0);
+                    tabla.putInt(pos + POS_DATOS + POS_VICTORIAS, 0);
+                    tabla.put(pos + POS_OCUPADO, (byte) 1);
+                    toret = pos;
+                } else {
+                    // Un hueco libre indica que el nombre no está en la tabla
+                    probados = capacidad;
+                }
+            } else if (mismoNombre(pos, nombre)) {
+                toret = pos;
+            } else {
+                i = (i + 1) % capacidad;
+                ++probados;
+            }
+        }
+
+        if (toret < 0 && crear) {
+            throw new IllegalStateException("No caben más jugadores en la clasificación.");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si un registro ocupado de la tabla corresponde a un nombre.
+     * @param pos La posición del registro.
+     * @param nombre El nombre, codificado.
+     * @return {@code true} si el registro es de ese nombre, {@code false} si no.
+     */
+    private boolean mismoNombre(int pos, byte[] nombre) {
+        boolean toret = tabla.get(pos + POS_LONGITUD_NOMBRE) == nombre.length;
+
+        for (int k = 0; toret && k < nombre.length; ++k) {
+            toret = tabla.get(pos + POS_NOMBRE + k) == nombre[k];
+        }
+
+        return toret;
+    }
+
+    /**
+     * Comprueba que los nombres de un resultado se pueden guardar en la tabla y que no se repiten.
+     * @param r El resultado.
+     * @throws IllegalArgumentException Si algún nombre no cabe en la tabla o aparece más de una vez.
+     */
+    private static void comprobarNombres(Resultado r) throws IllegalArgumentException {
+        Set<String> nombres = new HashSet<>();
+
+        for (List<String> lista : Arrays.asList(r.getGanadores(), r.getPerdedores())) {
+            for (String nombre : lista) {
+                codificarNombre(nombre);
+                if (!nombres.add(nombre)) {
+                    throw new IllegalArgumentException("El jugador " + nombre + " aparece más de una vez en un resultado.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe una lista de nombres para el registro de resultados, precedida de su longitud.
+     * @param salida Donde escribir los nombres.
+     * @param nombres Los nombres a escribir.
+     * @throws IOException Si no se puede escribir.
+     */
+    private static void escribirNombres(DataOutputStream salida, List<String> nombres) throws IOException {
+        salida.writeByte(nombres.size());
+        for (String nombre : nombres) {
+            salida.writeUTF(nombre);
+        }
+    }
+
+    /**
+     * Lee una lista de nombres del registro de resultados, en la posición actual.
+     * @return Los nombres leídos.
+     * @throws IOException Si no se puede leer el registro, o se acaba antes de terminar la lista.
+     */
+    private List<String> leerNombres() throws IOException {
+        int numNombres = registro.readUnsignedByte();
+        List<String> toret = new ArrayList<>(numNombres);
+
+        for (int i = 0; i < numNombres; ++i) {
+            toret.add(registro.readUTF());
+        }
+
+        return toret;
+    }
+
+    /**
+     * Codifica un nombre en UTF-8.
+     * @param nombre El nombre a codificar.
+     * @return Los bytes del nombre.
+     * @throws IllegalArgumentException Si el nombre ocupa más de {@link #MAX_BYTES_NOMBRE} bytes.
+     */
+    private static byte[] codificarNombre(String nombre) throws IllegalArgumentException {
+        byte[] toret = nombre.getBytes(StandardCharsets.UTF_8);
+
+        if (toret.length > MAX_BYTES_NOMBRE) {
+            throw new IllegalArgumentException("El nombre " + nombre + " ocupa más de " + MAX_BYTES_NOMBRE + " bytes.");
+        }
+
+        return toret;
+    }
+}
@@ -0,0 +1,20 @@
+package juegodomino;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Observador de una mesa de juego, que recibe las tramas que publica su {@link FlujoMesa}.
+ * Las recibe en el hilo que llama a {@link FlujoMesa.Suscripcion#entregarA(Espectador)}, nunca en el de la partida.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public interface Espectador {
+    /**
+     * Recibe una trama del flujo de la mesa.
+     * @param trama La trama, de solo lectura, desde su posición hasta su límite. Su contenido se comparte con el resto de
+     * espectadores, pero la posición y el límite son solo de este.
+     */
+    void recibir(ByteBuffer trama);
+}
@@ -0,0 +1,204 @@
+package juegodomino;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Espectador que reconstruye el estado visible de una mesa a partir de las tramas de su {@link FlujoMesa}: las fichas del
+ * tablero, cuántas fichas tiene cada jugador y cuántas quedan en el montón. No ve las manos de los jugadores.
+ * Hasta que no recibe la primera trama clave, ignora los deltas.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class EstadoEspectador implements Espectador {
+    // Cada ficha del tablero se guarda como 10 * numero1 + numero2, ya orientada
+    private final Deque<Integer> tablero;
+    private int[] fichasMano;
+    private int monton;
+    private int siguientePuesto;
+    private int numero;
+    private boolean sincronizado;
+
+    /**
+     * Crea un espectador que todavía no conoce el estado de la mesa.
+     */
+    public EstadoEspectador() {
+        this.tablero = new ArrayDeque<>(Ficha.NUM_FICHAS);
+        this.fichasMano = new int[0];
+    }
+
+    @Override
+    public synchronized void recibir(ByteBuffer trama) {
+        byte tipo = trama.get();
+        int numeroTrama = trama.getInt();
+
+        if (tipo == FlujoMesa.TIPO_CLAVE) {
+            aplicarClave(trama);
+            numero = numeroTrama;
+            sincronizado = true;
+        } else if (tipo == FlujoMesa.TIPO_DELTA && sincronizado && numeroTrama == numero + 1) {
+            aplicarDelta(trama);
+            numero = numeroTrama;
+        }
+    }
+
+    /**
+     * Indica si el espectador ya conoce el estado de la mesa.
+     * @return {@code true} si ha recibido alguna trama clave, {@code false} si no.
+     */
+    public synchronized boolean estaSincronizado() {
+        return sincronizado;
+    }
+
+    /**
+     * Devuelve el número de la última trama aplicada.
+     * @return El número de deltas que reflejan el estado actual.
+     */
+    public synchronized int getNumero() {
+        return numero;
+    }
+
+    /**
+     * Devuelve el número de fichas en la mano de un jugador.
+     * @param puesto El puesto del jugador.
+     * @return El número de fichas que tiene.
+     */
+    public synchronized int getNumFichasMano(int puesto) {
+        return fichasMano[puesto];
+    }
+
+    /**
+     * Devuelve el número de fichas en el montón.
+     * @return El número de fichas en el montón.
+     */
+    public synchronized int getNumFichasMonton() {
+        return monton;
+    }
+
+    /**
+     * Devuelve el puesto del jugador que tiene el turno.
+     * @return El puesto del jugador que tiene el turno.
+     */
+    public synchronized int getSiguientePuesto() {
+        return siguientePuesto;
+    }
+
+    /**
+     * Devuelve una representación textual del estado de la mesa, con el mismo formato de fichas que {@link Ficha#toString()}.
+     * @return Las fichas del tablero, las fichas en mano de cada jugador y las del montón.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder toret = new StringBuilder("[");
+
+        boolean primera = true;
+        for (int f : tablero) {
+            toret.append(primera ? "" : ", ").append(" [").append(f / 10).append("|").append(f % 10).append("] ");
+            primera = false;
+        }
+        toret.append("]\nFichas en montón: ").append(monton);
+        for (int p = 0; p < fichasMano.length; ++p) {
+            toret.append("\nJugador ").append(p + 1).append(": ").append(fichasMano[p]).append(" ficha(s)");
+        }
+
+        return toret.toString();
+    }
+
+    /**
+     * Reproduce desde la línea de órdenes un fichero escrito por {@link Retransmision}, mostrando el estado de la mesa
+     * tras cada jugada.
+     * <pre>
+     * java -cp JavaDominoes.jar juegodomino.EstadoEspectador &lt;fichero&gt;
+     * </pre>
+     * @param args El fichero de la retransmisión.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Uso: EstadoEspectador <fichero>");
+            System.exit(2);
+        }
+
+        EstadoEspectador estado = new EstadoEspectador();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            while (true) {
+                byte[] trama = new byte[entrada.readUnsignedShort()];
+                entrada.readFully(trama);
+
+                // Las tramas clave que siguen a un delta no cambian el estado, así que solo se muestra la primera
+                boolean sincronizado = estado.estaSincronizado();
+                int numero = estado.getNumero();
+                estado.recibir(ByteBuffer.wrap(trama));
+                if (estado.estaSincronizado() && (!sincronizado || estado.getNumero() != numero)) {
+                    System.out.println("Jugada " + estado.getNumero() + ":\n" + estado + "\n");
+                }
+            }
+        } catch (EOFException exc) {
+            // Fin de la retransmisión
+        } catch (IOException exc) {
+            System.err.println("Error al leer la retransmisión: " + exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sustituye el estado conocido por el de una trama clave.
+     * @param trama La trama clave, sin la cabecera.
+     */
+    private void aplicarClave(ByteBuffer trama) {
+        int numJugadores = trama.get();
+        siguientePuesto = trama.get();
+        monton = trama.get() & 0xFF;
+        fichasMano = new int[numJugadores];
+        for (int p = 0; p < numJugadores; ++p) {
+            fichasMano[p] = trama.get() & 0xFF;
+        }
+
+        tablero.clear();
+        int numFichas = trama.get() & 0xFF;
+        for (int i = 0; i < numFichas; ++i) {
+            int f = trama.get() & 0xFF;
+            int k = f & ~FlujoMesa.FICHA_GIRADA;
+            boolean girada = (f & FlujoMesa.FICHA_GIRADA) != 0;
+            tablero.addLast(girada ? 10 * Ficha.numero2(k) + Ficha.numero1(k) : 10 * Ficha.numero1(k) + Ficha.numero2(k));
+        }
+    }
+
+    /**
+     * Aplica una jugada al estado conocido.
+     * @param trama La trama delta, sin la cabecera.
+     */
+    private void aplicarDelta(ByteBuffer trama) {
+        int puesto = trama.get();
+        int ficha = trama.get() & 0xFF;
+        Juego.Lados lado = Juego.Lados.values()[trama.get()];
+        int robadas = trama.get();
+
+        fichasMano[puesto] += robadas;
+        monton -= robadas;
+        if (ficha != FlujoMesa.SIN_FICHA) {
+            int a = Ficha.numero1(ficha);
+            int b = Ficha.numero2(ficha);
+            --fichasMano[puesto];
+
+            // Orientar la ficha como lo hace Ficha.encajaEn al colocarla
+            if (tablero.isEmpty()) {
+                tablero.addFirst(10 * a + b);
+            } else if (lado.equals(Juego.Lados.IZQUIERDA)) {
+                int extremo = tablero.peekFirst() / 10;
+                tablero.addFirst(b == extremo ? 10 * a + b : 10 * b + a);
+            } else {
+                int extremo = tablero.peekLast() % 10;
+                tablero.addLast(a == extremo ? 10 * a + b : 10 * b + a);
+            }
+        }
+        siguientePuesto = (puesto + 1) % fichasMano.length;
+    }
+}
@@ -0,0 +1,24 @@
+package juegodomino;
+
+import java.util.List;
+
+/**
+ * Forma de elegir qué ficha jugar de entre las que se pueden poner, con un tiempo límite.
+ * Las implementaciones deben devolver la mejor ficha que hayan encontrado antes del plazo, aunque no hayan terminado de buscar.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public interface Estrategia {
+    /**
+     * Elige la ficha a jugar.
+     * @param j El jugador que juega.
+     * @param m La mesa en la que juega.
+     * @param fichasJugables Las fichas que puede jugar. No debe estar vacía.
+     * @param plazo El instante, según {@link System#nanoTime()}, en el que debe de estar decidida la jugada.
+     * {@link Long#MAX_VALUE} si no hay límite.
+     * @return La ficha elegida, que es una de {@code fichasJugables}.
+     */
+    Ficha elegirFicha(Jugador j, Mesa m, List<Ficha> fichasJugables, long plazo);
+}
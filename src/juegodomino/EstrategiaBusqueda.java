@@ -0,0 +1,130 @@
+package juegodomino;
+
+import java.util.List;
+
+/**
+ * Estrategia que busca la secuencia de jugadas propias con la que el jugador suelta más puntos, suponiendo que los demás
+ * jugadores no cambian los extremos del tablero. Es una búsqueda en profundidad iterativa: empieza por la mejor ficha según
+ * {@link Evaluador} y va mirando cada vez una jugada más allá, hasta que se acaba el plazo o no hay más jugadas que mirar.
+ * Si el plazo se acaba a mitad de una profundidad, se descarta esa profundidad y se usa el resultado de la anterior.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class EstrategiaBusqueda implements Estrategia {
+    /**
+     * Valor extra de una secuencia de jugadas con la que el jugador se queda sin fichas.
+     */
+    private static final int VALOR_DOMINO = 1000;
+    /**
+     * Valor que indica que la búsqueda se interrumpió por haberse acabado el plazo.
+     */
+    private static final int INTERRUMPIDA = Integer.MIN_VALUE;
+    /**
+     * Cada cuántos nodos visitados se consulta el reloj.
+     */
+    private static final int NODOS_ENTRE_CONSULTAS = 64;
+
+    private long plazo;
+    private int nodos;
+    private boolean podaProfundidad;
+
+    @Override
+    public synchronized Ficha elegirFicha(Jugador j, Mesa m, List<Ficha> fichasJugables, long plazo) {
+        int[] evaluaciones = Evaluador.evaluar(j, m);
+        int mano = j.getMascaraMano();
+        int extremoIzq = m.getExtremoIzquierdo();
+        int extremoDer = m.getExtremoDerecho();
+        Ficha toret = Evaluador.mejorFicha(evaluaciones, fichasJugables);
+        boolean seguir = true;
+
+        this.plazo = plazo;
+        this.nodos = 0;
+
+        // Cada profundidad completa mejora la elección; se para si ninguna secuencia llegó a la profundidad máxima
+        for (int profundidad = 2; seguir && profundidad <= Integer.bitCount(mano) && System.nanoTime() < plazo; ++profundidad) {
+            Ficha mejor = null;
+            int mejorValor = Integer.MIN_VALUE;
+            boolean interrumpida = false;
+            podaProfundidad = false;
+
+            for (int k = 0; k < fichasJugables.size() && !interrumpida; ++k) {
+                Ficha f = fichasJugables.get(k);
+                int valor = valorarJugada(mano, extremoIzq, extremoDer, f.getIndice(), profundidad);
+
+                if (valor == INTERRUMPIDA) {
+                    interrumpida = true;
+                } else if (mejor == null || valor > mejorValor
+                        || (valor == mejorValor && evaluaciones[f.getIndice()] > evaluaciones[mejor.getIndice()])) {
+                    mejor = f;
+                    mejorValor = valor;
+                }
+            }
+
+            if (!interrumpida) {
+                toret = mejor;
+            }
+            seguir = !interrumpida && podaProfundidad;
+        }
+
+        return toret;
+    }
+
+    /**
+     * Valora jugar una ficha seguida de la mejor secuencia de jugadas propias posible, de hasta cierta longitud.
+     * La ficha se pone en el mismo lado en el que la pondría {@link Ficha#encajaEn(Mesa, boolean)}.
+     * @param mano La máscara de fichas en mano, incluida la ficha a jugar.
+     * @param extremoIzq El extremo izquierdo del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+     * @param extremoDer El extremo derecho del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+     * @param ficha El índice de la ficha a jugar, que tiene que encajar.
+     * @param profundidad El número máximo de jugadas de la secuencia, incluida esta.
+     * @return Los puntos soltados en la secuencia (más {@code VALOR_DOMINO} si se queda sin fichas),
+     * o {@code INTERRUMPIDA} si se acabó el plazo.
+     */
+    private int valorarJugada(int mano, int extremoIzq, int extremoDer, int ficha, int profundidad) {
+        int a = Ficha.numero1(ficha);
+        int b = Ficha.numero2(ficha);
+        int nuevoIzq = extremoIzq;
+        int nuevoDer = extremoDer;
+        int toret;
+
+        // Colocar la ficha
+        if (extremoIzq == Mesa.SIN_EXTREMO) {
+            nuevoIzq = a;
+            nuevoDer = b;
+        } else if (extremoIzq == a || extremoIzq == b) {
+            nuevoIzq = extremoIzq == a ? b : a;
+        } else {
+            nuevoDer = extremoDer == a ? b : a;
+        }
+        mano &= ~(1 << ficha);
+
+        if ((++nodos) % NODOS_ENTRE_CONSULTAS == 0 && System.nanoTime() >= plazo) {
+            toret = INTERRUMPIDA;
+        } else if (mano == 0) {
+            toret = a + b + VALOR_DOMINO;
+        } else if (profundidad == 1) {
+            podaProfundidad = true;
+            toret = a + b;
+        } else {
+            // Buscar la mejor continuación con las fichas que encajen
+            int mejor = 0;
+            int resto = mano;
+            while (resto != 0 && mejor != INTERRUMPIDA) {
+                int siguiente = Integer.numberOfTrailingZeros(resto);
+                resto &= resto - 1;
+                int c = Ficha.numero1(siguiente);
+                int d = Ficha.numero2(siguiente);
+
+                if (c == nuevoIzq || d == nuevoIzq || c == nuevoDer || d == nuevoDer) {
+                    int valor = valorarJugada(mano, nuevoIzq, nuevoDer, siguiente, profundidad - 1);
+                    mejor = valor == INTERRUMPIDA ? INTERRUMPIDA : Math.max(mejor, valor);
+                }
+            }
+            toret = mejor == INTERRUMPIDA ? INTERRUMPIDA : a + b + mejor;
+        }
+
+        return toret;
+    }
+}
@@ -0,0 +1,18 @@
+package juegodomino;
+
+import java.util.List;
+
+/**
+ * Estrategia que juega la ficha con mejor evaluación heurística según {@link Evaluador}. No depende del plazo, ya que
+ * solo evalúa una vez la posición.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class EstrategiaHeuristica implements Estrategia {
+    @Override
+    public Ficha elegirFicha(Jugador j, Mesa m, List<Ficha> fichasJugables, long plazo) {
+        return Evaluador.mejorFicha(j, m, fichasJugables);
+    }
+}
@@ -0,0 +1,105 @@
+package juegodomino;
+
+import java.util.List;
+
+/**
+ * Evaluación heurística de las fichas que puede jugar un jugador, para que la usen los jugadores automáticos.
+ * Las evaluaciones no se guardan entre decisiones: calcularlas es un recorrido de las 28 fichas, más barato que
+ * buscarlas en una tabla, y la misma posición apenas se repite entre partidas.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class Evaluador {
+    /**
+     * Evaluación de las fichas que no se pueden jugar.
+     */
+    public static final int NO_JUGABLE = Integer.MIN_VALUE;
+
+    private Evaluador() {}
+
+    /**
+     * Evalúa las fichas de la mano de un jugador. Cuanto mayor es la evaluación de una ficha, más conviene jugarla.
+     * @param j El jugador.
+     * @param m La mesa en la que juega.
+     * @return Las evaluaciones, indexadas por {@link Ficha#getIndice()}. Las fichas que no tiene o no puede jugar valen
+     * {@link #NO_JUGABLE}.
+     */
+    public static int[] evaluar(Jugador j, Mesa m) {
+        return calcularEvaluaciones(j, m.getExtremoIzquierdo(), m.getExtremoDerecho());
+    }
+
+    /**
+     * Elige la ficha más conveniente de entre las que puede jugar un jugador.
+     * @param j El jugador.
+     * @param m La mesa en la que juega.
+     * @param fichasJugables Las fichas que puede jugar. No debe estar vacía.
+     * @return La ficha con mayor evaluación.
+     */
+    public static Ficha mejorFicha(Jugador j, Mesa m, List<Ficha> fichasJugables) {
+        return mejorFicha(evaluar(j, m), fichasJugables);
+    }
+
+    /**
+     * Elige la ficha con mayor evaluación de entre las que puede jugar un jugador, con las evaluaciones ya calculadas.
+     * @param evaluaciones Las evaluaciones de la posición, como las devuelve {@link #evaluar(Jugador, Mesa)}.
+     * @param fichasJugables Las fichas que puede jugar. No debe estar vacía.
+     * @return La ficha con mayor evaluación.
+     */
+    public static Ficha mejorFicha(int[] evaluaciones, List<Ficha> fichasJugables) {
+        Ficha toret = fichasJugables.get(0);
+
+        for (Ficha f : fichasJugables) {
+            if (evaluaciones[f.getIndice()] > evaluaciones[toret.getIndice()]) {
+                toret = f;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Calcula las evaluaciones de la posición de un jugador.
+     * Se prefiere soltar las fichas con más puntos y los dobles, que son más difíciles de colocar,
+     * y dejar en el extremo un número del que queden más fichas en la mano, para poder seguir jugando.
+     * @param j El jugador.
+     * @param extremoIzq El extremo izquierdo del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+     * @param extremoDer El extremo derecho del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+     * @return Las evaluaciones, indexadas por índice de ficha.
+     */
+    private static int[] calcularEvaluaciones(Jugador j, int extremoIzq, int extremoDer) {
+        int mano = j.getMascaraMano();
+        int[] toret = new int[Ficha.NUM_FICHAS];
+
+        for (int a = 0; a < Ficha.NUM_VALORES; ++a) {
+            for (int b = a; b < Ficha.NUM_VALORES; ++b) {
+                int i = Ficha.indice(a, b);
+                int extremoNuevo;
+
+                // Ver qué número quedaría en el extremo, con la misma preferencia de lados que Ficha.encajaEn
+                if ((mano & (1 << i)) == 0) {
+                    extremoNuevo = -1;
+                } else if (extremoIzq == Mesa.SIN_EXTREMO) {
+                    extremoNuevo = a;
+                } else if (extremoIzq == a || extremoIzq == b) {
+                    extremoNuevo = extremoIzq == a ? b : a;
+                } else if (extremoDer == a || extremoDer == b) {
+                    extremoNuevo = extremoDer == a ? b : a;
+                } else {
+                    extremoNuevo = -1;
+                }
+
+                if (extremoNuevo < 0) {
+                    toret[i] = NO_JUGABLE;
+                } else {
+                    // La propia ficha deja de contar para el número que queda en el extremo
+                    int restantes = j.getFichasConNumero(extremoNuevo) - 1;
+                    toret[i] = 2 * (a + b) + (a == b ? 6 : 0) + 3 * restantes;
+                }
+            }
+        }
+
+        return toret;
+    }
+}
@@ -8,6 +8,27 @@ package juegodomino;
  * @author Daniel Gómez Rodríguez
  */
 public final class Ficha {
+    /**
+     * Número de fichas distintas que tiene un juego de dominó.
+     */
+    public static final int NUM_FICHAS = 28;
+    /**
+     * Número de valores distintos que puede tener cada mitad de una ficha (del 0 al 6).
+     */
+    public static final int NUM_VALORES = 7;
+    // Números de cada ficha, indexados por índice de ficha
+    private static final byte[] NUMERO1 = new byte[NUM_FICHAS];
+    private static final byte[] NUMERO2 = new byte[NUM_FICHAS];
+
+    static {
+        for (int i = 0; i < NUM_VALORES; ++i) {
+            for (int j = i; j < NUM_VALORES; ++j) {
+                NUMERO1[indice(i, j)] = (byte) i;
+                NUMERO2[indice(i, j)] = (byte) j;
+            }
+        }
+    }
+
     private int numero1;
     private int numero2;
 
@@ -37,6 +58,47 @@ public final class Ficha {
         return numero2;
     }
 
+    /**
+     * Devuelve el índice de la ficha dentro del juego completo, independiente de si está girada o no.
+     * @return El índice de la ficha, entre {@code 0} y {@code NUM_FICHAS - 1}.
+     * @see #indice(int, int)
+     */
+    public int getIndice() {
+        return indice(numero1, numero2);
+    }
+
+    /**
+     * Calcula el índice de la ficha con los números dados, en el mismo orden en el que {@link Monton} genera las fichas
+     * ({@code [0|0], [0|1], ..., [0|6], [1|1], ..., [6|6]}).
+     * @param a Uno de los números de la ficha.
+     * @param b El otro número de la ficha.
+     * @return El índice de la ficha, entre {@code 0} y {@code NUM_FICHAS - 1}.
+     */
+    public static int indice(int a, int b) {
+        int menor = Math.min(a, b);
+        int mayor = Math.max(a, b);
+        // Antes de la fila "menor" hay 7 + 6 + ... + (7 - menor + 1) fichas
+        return menor * NUM_VALORES - menor * (menor - 1) / 2 + (mayor - menor);
+    }
+
+    /**
+     * Devuelve el menor de los números de la ficha con un índice dado.
+     * @param indice El índice de la ficha, como lo calcula {@link #indice(int, int)}.
+     * @return El menor de los números de la ficha.
+     */
+    public static int numero1(int indice) {
+        return NUMERO1[indice];
+    }
+
+    /**
+     * Devuelve el mayor de los números de la ficha con un índice dado.
+     * @param indice El índice de la ficha, como lo calcula {@link #indice(int, int)}.
+     * @return El mayor de los números de la ficha.
+     */
+    public static int numero2(int indice) {
+        return NUMERO2[indice];
+    }
+
     /**
      * Comprueba que la ficha actual puede colocarse al lado de alguna de la fichas de los extremos.
      * @param m Mesa que contiene el tablero donde se harán las comprobaciones.
@@ -52,10 +114,10 @@ public final class Ficha {
         // Encaja en ninguno: !A && !B <=> !(A || B) (De Morgan)
         Juego.Lados toret;
         
-        boolean encajaEnIzquierdo = m.getPrimeraFicha() == null;
+        int extremoIzquierdo = m.getExtremoIzquierdo();
+        int extremoDerecho = m.getExtremoDerecho();
+        boolean encajaEnIzquierdo = extremoIzquierdo == Mesa.SIN_EXTREMO;
         boolean encajaEnDerecho;
-        int extremoIzquierdo = encajaEnIzquierdo ? Integer.MIN_VALUE : m.getPrimeraFicha().getNumero1();
-        int extremoDerecho = encajaEnIzquierdo ? Integer.MIN_VALUE : m.getUltimaFicha().getNumero2();
         
         // Si no hay fichas en tablero, considerar que encaja por el lado izquierdo
         // Si las hay, analizar si se cumplen A y/o B
@@ -0,0 +1,205 @@
+package juegodomino;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flujo de tramas con el estado de una mesa, para los espectadores.
+ * <p>
+ * Por cada jugada se publica una trama delta con lo que cambió, y cada {@link #INTERVALO_CLAVE} jugadas una trama clave con el
+ * estado completo. Cada trama se codifica una sola vez y se guarda en un anillo con las últimas {@link #CAPACIDAD} tramas,
+ * así que publicar no depende del número de espectadores. Los espectadores no reciben las tramas en el hilo de la partida:
+ * cada uno tiene una {@link Suscripcion} de la que las saca desde su propio hilo, compartiendo su contenido con el resto.
+ * Una suscripción nueva empieza en la última trama clave, y una que se queda más de {@link #CAPACIDAD} tramas atrás salta
+ * a la última trama clave, sin frenar la partida.
+ * <p>
+ * Todas las tramas empiezan por su tipo (un byte) y su número de secuencia (un {@code int}), que es el número de deltas
+ * publicados hasta ella, incluida. Formato del resto de la trama:
+ * <ul>
+ * <li>Delta: puesto del jugador, índice de la ficha puesta ({@link #SIN_FICHA} si no puso ninguna), lado donde la puso
+ * (ordinal de {@link Juego.Lados}) y fichas robadas, un byte cada uno. Un pase es un delta sin ficha ni fichas robadas.</li>
+ * <li>Clave: número de jugadores, puesto del jugador que tiene el turno, fichas en el montón, fichas en la mano de cada jugador,
+ * número de fichas en el tablero y cada ficha del tablero de izquierda a derecha, un byte cada uno. Cada ficha del tablero es
+ * su índice, con el bit 7 activado si su primer número es mayor que el segundo.</li>
+ * </ul>
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class FlujoMesa {
+    /**
+     * Tipo de las tramas delta.
+     */
+    public static final byte TIPO_DELTA = 1;
+    /**
+     * Tipo de las tramas clave.
+     */
+    public static final byte TIPO_CLAVE = 2;
+    /**
+     * Índice de ficha que indica que no se puso ninguna.
+     */
+    public static final int SIN_FICHA = 0xFF;
+    /**
+     * Bit que indica en una trama clave que una ficha del tablero tiene el primer número mayor que el segundo.
+     */
+    public static final int FICHA_GIRADA = 0x80;
+    /**
+     * Cada cuántas jugadas se publica una trama clave.
+     */
+    private static final int INTERVALO_CLAVE = 16;
+    /**
+     * Número de tramas que se guardan. Debe ser potencia de dos y bastante mayor que {@code INTERVALO_CLAVE}, para que la
+     * última trama clave siga en el anillo mientras un espectador atrasado salta a ella.
+     */
+    private static final int CAPACIDAD = 64;
+    private static final int TAM_CABECERA = 1 + 4;
+
+    private final Mesa mesa;
+    private final Trama[] anillo;
+    // Número de tramas publicadas, y número de orden de la última trama clave (-1 si aún no hay ninguna)
+    private volatile long publicadas;
+    private volatile long ultimaClave;
+    private int numero;
+
+    /**
+     * Trama guardada en el anillo, con su número de orden entre todas las publicadas para detectar si se sobrescribió.
+     */
+    private static final class Trama {
+        private final long orden;
+        private final ByteBuffer contenido;
+
+        Trama(long orden, ByteBuffer contenido) {
+            this.orden = orden;
+            this.contenido = contenido;
+        }
+    }
+
+    /**
+     * Suscripción de un espectador a un flujo: recuerda la siguiente trama que le toca. No se debe usar desde varios hilos a la vez.
+     */
+    public final class Suscripcion {
+        private long siguiente;
+
+        private Suscripcion() {
+            long clave = ultimaClave;
+            this.siguiente = clave >= 0 ? clave : publicadas;
+        }
+
+        /**
+         * Saca la siguiente trama del flujo, si ya se publicó.
+         * @return La trama, de solo lectura, desde su posición hasta su límite, o {@code null} si no hay tramas nuevas.
+         * Su contenido se comparte con el resto de espectadores, pero la posición y el límite son solo de esta suscripción.
+         */
+        public ByteBuffer siguiente() {
+            ByteBuffer toret = null;
+
+            while (toret == null && siguiente < publicadas) {
+                Trama t = anillo[(int) siguiente & (CAPACIDAD - 1)];
+                if (t != null && t.orden == siguiente) {
+                    toret = t.contenido.duplicate();
+                    ++siguiente;
+                } else {
+                    // La trama ya se sobrescribió: saltar a la última trama clave
+                    siguiente = Math.max(siguiente + 1, ultimaClave);
+                }
+            }
+
+            return toret;
+        }
+
+        /**
+         * Entrega a un espectador, en el hilo que llama, todas las tramas publicadas que aún no sacó esta suscripción.
+         * @param e El espectador.
+         * @return El número de tramas entregadas.
+         */
+        public int entregarA(Espectador e) {
+            int toret = 0;
+
+            for (ByteBuffer trama = siguiente(); trama != null; trama = siguiente()) {
+                e.recibir(trama);
+                ++toret;
+            }
+
+            return toret;
+        }
+    }
+
+    /**
+     * Crea el flujo de una mesa, sin tramas publicadas.
+     * @param mesa La mesa de la que se publica el estado.
+     */
+    public FlujoMesa(Mesa mesa) {
+        this.mesa = mesa;
+        this.anillo = new Trama[CAPACIDAD];
+        this.ultimaClave = -1;
+    }
+
+    /**
+     * Crea una suscripción al flujo, que empieza en la última trama clave publicada (o en la primera que se publique).
+     * @return La suscripción.
+     */
+    public Suscripcion suscribir() {
+        return new Suscripcion();
+    }
+
+    /**
+     * Publica una trama clave con el estado completo de la mesa.
+     * @param siguientePuesto El puesto del jugador que tiene el turno.
+     */
+    public synchronized void publicarClave(int siguientePuesto) {
+        Jugador[] jugadores = mesa.getJugadores();
+        int numFichas = mesa.getNumFichasTablero();
+        ByteBuffer trama = ByteBuffer.allocate(TAM_CABECERA + 4 + jugadores.length + numFichas);
+
+        trama.put(TIPO_CLAVE).putInt(numero);
+        trama.put((byte) jugadores.length).put((byte) siguientePuesto).put((byte) mesa.getMonton().getNumFichas());
+        for (Jugador j : jugadores) {
+            trama.put((byte) j.getNumFichasMano());
+        }
+        trama.put((byte) numFichas);
+        for (int i = 0; i < numFichas; ++i) {
+            Ficha f = mesa.getFicha(i);
+            trama.put((byte) (f.getIndice() | (f.getNumero1() > f.getNumero2() ? FICHA_GIRADA : 0)));
+        }
+        trama.flip();
+
+        long orden = publicar(trama);
+        ultimaClave = orden;
+    }
+
+    /**
+     * Publica una trama delta con una jugada. Si toca, publica también una trama clave después.
+     * @param puesto El puesto del jugador que hizo la jugada.
+     * @param ficha La ficha que puso, o {@code null} si no puso ninguna.
+     * @param lado El lado donde la puso.
+     * @param robadas El número de fichas que robó del montón.
+     */
+    public synchronized void publicarJugada(int puesto, Ficha ficha, Juego.Lados lado, int robadas) {
+        ByteBuffer trama = ByteBuffer.allocate(TAM_CABECERA + 4);
+
+        trama.put(TIPO_DELTA).putInt(++numero);
+        trama.put((byte) puesto);
+        trama.put((byte) (ficha == null ? SIN_FICHA : ficha.getIndice()));
+        trama.put((byte) (ficha == null ? Juego.Lados.NINGUNO : lado).ordinal());
+        trama.put((byte) robadas);
+        trama.flip();
+
+        publicar(trama);
+
+        if (numero % INTERVALO_CLAVE == 0) {
+            publicarClave((puesto + 1) % mesa.getJugadores().length);
+        }
+    }
+
+    /**
+     * Guarda una trama en el anillo y la hace visible a las suscripciones.
+     * @param trama La trama a publicar.
+     * @return El número de orden de la trama.
+     */
+    private long publicar(ByteBuffer trama) {
+        long orden = publicadas;
+        anillo[(int) orden & (CAPACIDAD - 1)] = new Trama(orden, trama.asReadOnlyBuffer());
+        publicadas = orden + 1;
+        return orden;
+    }
+}
@@ -0,0 +1,912 @@
+package juegodomino;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Índice invertido sobre un fichero de posiciones escrito por {@link RegistroPosiciones}.
+ * <p>
+ * Para cada valor de las características más selectivas (extremos del tablero, turno, fichas en el montón, puesto que tiene
+ * el turno y puestos ganadores) guarda la lista ordenada de números de posición que lo tienen. Las listas se guardan en un
+ * fichero junto al de posiciones, con extensión {@code .idx}, que se construye la primera vez que se abre el fichero de
+ * posiciones (o si este cambió después) y después se proyecta en memoria, así que abrir el índice no depende del número de
+ * posiciones. Una consulta intersecta las listas de las características que restringe, saltando con búsqueda exponencial
+ * en cada lista hasta el siguiente candidato de las demás, y solo lee del fichero de posiciones las que encuentra, para
+ * comprobar las máscaras de fichas si la consulta las restringe y para devolverlas. Un rango amplio de turnos también se
+ * comprueba así, salvo que sea la característica más selectiva de la consulta.
+ * <p>
+ * Los números de posición se guardan como enteros de 32 bits sin signo, así que un fichero puede tener hasta
+ * {@code 2^32} posiciones.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class IndicePosiciones implements Closeable {
+    /**
+     * Número máximo de puestos en una mesa.
+     */
+    private static final int MAX_PUESTOS = 4;
+    /**
+     * Número máximo de posiciones en un fichero, por guardarse sus números en 32 bits.
+     */
+    private static final long MAX_POSICIONES = 1L << 32;
+    /**
+     * Número de posiciones que se proyectan en memoria en cada trozo del fichero.
+     */
+    private static final int POSICIONES_POR_TROZO = (Integer.MAX_VALUE / RegistroPosiciones.TAM_POSICION) & ~0xFFFF;
+    /**
+     * Número de entradas de las listas que se proyectan en memoria en cada trozo del índice ({@code 2^28}, 1 GiB).
+     */
+    private static final int BITS_ENTRADAS_POR_TROZO = 28;
+    /**
+     * Número de entradas de cada lista que se acumulan en memoria antes de escribirlas al construir el índice.
+     */
+    private static final int TAM_BUFER = 2048;
+    /**
+     * Número de listas de turnos a partir del cual, si hay otro recorrido más corto, sale más barato comprobar el turno en
+     * cada posición encontrada que adelantar todas esas listas.
+     */
+    private static final int MAX_LISTAS_UNION = 4;
+    /**
+     * Valor de un recorrido de posiciones que ya terminó.
+     */
+    private static final long FIN = Long.MAX_VALUE;
+
+    // Primera lista de cada característica en el fichero de índice
+    private static final int LISTAS_EXTREMOS = 0;
+    private static final int LISTAS_TURNO = LISTAS_EXTREMOS + 8 * 8;
+    private static final int LISTAS_MONTON = LISTAS_TURNO + 256;
+    private static final int LISTAS_PUESTO = LISTAS_MONTON + 256;
+    private static final int LISTAS_GANADOR = LISTAS_PUESTO + MAX_PUESTOS;
+    private static final int NUM_LISTAS = LISTAS_GANADOR + MAX_PUESTOS;
+
+    // Formato del índice: número mágico, número de listas, número de posiciones, fecha de modificación del fichero de
+    // posiciones indexado y dónde empieza cada lista (más el final de la última), seguido de las entradas de todas las listas
+    private static final int MAGICO_INDICE = 0x444F4D49;  // "DOMI"
+    private static final int TAM_CABECERA_INDICE = 4 + 4 + 8 + 8 + 8 * (NUM_LISTAS + 1);
+
+    private final RandomAccessFile fichero;
+    private final MappedByteBuffer[] trozos;
+    private final long numPosiciones;
+    private final RandomAccessFile ficheroIndice;
+    private final MappedByteBuffer[] trozosIndice;
+    private final long[] inicioLista;
+
+    /**
+     * Recorrido ordenado de números de posición, que se puede adelantar hasta un número dado.
+     */
+    private abstract static class Recorrido {
+        /**
+         * Devuelve el número de posición actual del recorrido.
+         * @return El número de posición actual, o {@link #FIN} si el recorrido terminó.
+         */
+        abstract long actual();
+
+        /**
+         * Adelanta el recorrido hasta el primer número de posición mayor o igual que uno dado. Si el actual ya lo es, no hace nada.
+         * @param n El número de posición.
+         */
+        abstract void avanzarHasta(long n);
+
+        /**
+         * Devuelve el número total de posiciones del recorrido, para decidir en qué orden intersectarlos.
+         * @return El número de posiciones.
+         */
+        abstract long getTam();
+    }
+
+    /**
+     * Recorrido de una lista del índice.
+     */
+    private final class Lista extends Recorrido {
+        private final long fin;
+        private long i;
+
+        Lista(int lista) {
+            this(inicioLista[lista], inicioLista[lista + 1]);
+        }
+
+        Lista(long inicio, long fin) {
+            this.i = inicio;
+            this.fin = fin;
+        }
+
+        @Override
+        long actual() {
+            return i < fin ? entrada(i) : FIN;
+        }
+
+        @Override
+        void avanzarHasta(long n) {
+            if (i < fin && entrada(i) < n) {
+                // Saltar cada vez el doble hasta pasarse, y buscar después de forma binaria en el último salto
+                long bajo = i;
+                long paso = 1;
+                while (bajo + paso < fin && entrada(bajo + paso) < n) {
+                    bajo += paso;
+                    paso <<= 1;
+                }
+
+                long alto = Math.min(bajo + paso, fin);
+                while (alto - bajo > 1) {
+                    long medio = (bajo + alto) >>> 1;
+                    if (entrada(medio) < n) {
+                        bajo = medio;
+                    } else {
+                        alto = medio;
+                    }
+                }
+                i = alto;
+            }
+        }
+
+        @Override
+        long getTam() {
+            return fin - i;
+        }
+    }
+
+    /**
+     * Recorrido de la unión de varias listas disjuntas del índice. Guarda la posición actual de cada lista para adelantar
+     * solo las que se quedaron atrás.
+     */
+    private static final class Union extends Recorrido {
+        private final Lista[] listas;
+        private final long[] actuales;
+        private long minimo;
+
+        Union(List<Lista> listas) {
+            this.listas = listas.toArray(new Lista[listas.size()]);
+            this.actuales = new long[this.listas.length];
+            this.minimo = FIN;
+            for (int k = 0; k < actuales.length; ++k) {
+                actuales[k] = this.listas[k].actual();
+                minimo = Math.min(minimo, actuales[k]);
+            }
+        }
+
+        @Override
+        long actual() {
+            return minimo;
+        }
+
+        @Override
+        void avanzarHasta(long n) {
+            if (minimo < n) {
+                minimo = FIN;
+                for (int k = 0; k < listas.length; ++k) {
+                    if (actuales[k] < n) {
+                        listas[k].avanzarHasta(n);
+                        actuales[k] = listas[k].actual();
+                    }
+                    minimo = Math.min(minimo, actuales[k]);
+                }
+            }
+        }
+
+        @Override
+        long getTam() {
+            long toret = 0;
+            for (Lista l : listas) {
+                toret += l.getTam();
+            }
+            return toret;
+        }
+    }
+
+    /**
+     * Recorrido de todas las posiciones del fichero, para las consultas que no restringen ninguna característica indexada.
+     */
+    private final class Todas extends Recorrido {
+        private long i;
+
+        @Override
+        long actual() {
+            return i < numPosiciones ? i : FIN;
+        }
+
+        @Override
+        void avanzarHasta(long n) {
+            i = Math.max(i, n);
+        }
+
+        @Override
+        long getTam() {
+            return numPosiciones - i;
+        }
+    }
+
+    /**
+     * Una posición guardada: la situación de la mesa al empezar un turno de una partida.
+     */
+    public static final class Posicion {
+        private final long partida;
+        private final int fichasJugadas;
+        private final int mano;
+        private final int turno;
+        private final int puesto;
+        private final int extremoIzq;
+        private final int extremoDer;
+        private final int monton;
+        private final int ganadores;
+
+        private Posicion(long partida, int fichasJugadas, int mano, int turno, int puesto,
+                int extremoIzq, int extremoDer, int monton, int ganadores) {
+            this.partida = partida;
+            this.fichasJugadas = fichasJugadas;
+            this.mano = mano;
+            this.turno = turno;
+            this.puesto = puesto;
+            this.extremoIzq = extremoIzq;
+            this.extremoDer = extremoDer;
+            this.monton = monton;
+            this.ganadores = ganadores;
+        }
+
+        /**
+         * Obtiene la semilla de la partida, que la identifica.
+         * @return La semilla de la partida, que la identifica.
+         */
+        public long getPartida() {
+            return partida;
+        }
+
+        /**
+         * Obtiene la máscara de fichas que hay en el tablero.
+         * @return La máscara de fichas que hay en el tablero.
+         */
+        public int getFichasJugadas() {
+            return fichasJugadas;
+        }
+
+        /**
+         * Obtiene la máscara de fichas en la mano del jugador que tiene el turno.
+         * @return La máscara de fichas en la mano del jugador que tiene el turno.
+         */
+        public int getMano() {
+            return mano;
+        }
+
+        /**
+         * Obtiene el número de turno, empezando en 0.
+         * @return El número de turno, empezando en 0.
+         */
+        public int getTurno() {
+            return turno;
+        }
+
+        /**
+         * Obtiene el puesto del jugador que tiene el turno, empezando en 0.
+         * @return El puesto del jugador que tiene el turno, empezando en 0.
+         */
+        public int getPuesto() {
+            return puesto;
+        }
+
+        /**
+         * Obtiene el extremo izquierdo del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+         * @return El extremo izquierdo del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+         */
+        public int getExtremoIzq() {
+            return extremoIzq;
+        }
+
+        /**
+         * Obtiene el extremo derecho del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+         * @return El extremo derecho del tablero, o {@link Mesa#SIN_EXTREMO} si está vacío.
+         */
+        public int getExtremoDer() {
+            return extremoDer;
+        }
+
+        /**
+         * Obtiene el número de fichas en el montón.
+         * @return El número de fichas en el montón.
+         */
+        public int getMonton() {
+            return monton;
+        }
+
+        /**
+         * Obtiene la máscara de puestos que ganaron la partida.
+         * @return La máscara de puestos que ganaron la partida.
+         */
+        public int getGanadores() {
+            return ganadores;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Partida %d, turno %d: juega el puesto %d, extremos %s y %s, %d fichas en el montón, ganadores %s",
+                    partida, turno, puesto + 1, extremoIzq == Mesa.SIN_EXTREMO ? "-" : extremoIzq,
+                    extremoDer == Mesa.SIN_EXTREMO ? "-" : extremoDer, monton, puestos(ganadores));
+        }
+
+        private static String puestos(int mascara) {
+            StringBuilder toret = new StringBuilder();
+            for (int p = 0; p < MAX_PUESTOS; ++p) {
+                if ((mascara & (1 << p)) != 0) {
+                    toret.append(toret.length() > 0 ? "," : "").append(p + 1);
+                }
+            }
+            return toret.toString();
+        }
+    }
+
+    /**
+     * Condiciones que tienen que cumplir las posiciones buscadas. Las que no se indiquen no restringen la búsqueda.
+     */
+    public static final class Consulta {
+        private int extremoA = -1;
+        private int extremoB = -1;
+        private int turnoMinimo = 0;
+        private int turnoMaximo = Integer.MAX_VALUE;
+        private int monton = -1;
+        private int puesto = -1;
+        private int ganador = -1;
+        private int fichasJugadas;
+        private int fichasEnMano;
+
+        /**
+         * Busca posiciones con unos extremos en el tablero, en cualquier orden.
+         * @param a Uno de los extremos.
+         * @param b El otro extremo.
+         * @return Esta consulta.
+         */
+        public Consulta conExtremos(int a, int b) {
+            this.extremoA = Math.min(a, b);
+            this.extremoB = Math.max(a, b);
+            return this;
+        }
+
+        /**
+         * Busca posiciones en un rango de turnos.
+         * @param minimo El primer turno, incluido.
+         * @param maximo El último turno, incluido.
+         * @return Esta consulta.
+         */
+        public Consulta conTurnos(int minimo, int maximo) {
+            this.turnoMinimo = minimo;
+            this.turnoMaximo = maximo;
+            return this;
+        }
+
+        /**
+         * Busca posiciones con un número de fichas en el montón.
+         * @param n El número de fichas en el montón.
+         * @return Esta consulta.
+         */
+        public Consulta conMonton(int n) {
+            this.monton = n;
+            return this;
+        }
+
+        /**
+         * Busca posiciones en las que tiene el turno un puesto.
+         * @param p El puesto, empezando en 0.
+         * @return Esta consulta.
+         */
+        public Consulta conPuesto(int p) {
+            this.puesto = p;
+            return this;
+        }
+
+        /**
+         * Busca posiciones de partidas que ganó un puesto.
+         * @param p El puesto, empezando en 0.
+         * @return Esta consulta.
+         */
+        public Consulta conGanador(int p) {
+            this.ganador = p;
+            return this;
+        }
+
+        /**
+         * Busca posiciones en las que ya se han jugado unas fichas (y quizá otras).
+         * @param mascara La máscara de fichas jugadas.
+         * @return Esta consulta.
+         */
+        public Consulta conFichasJugadas(int mascara) {
+            this.fichasJugadas = mascara;
+            return this;
+        }
+
+        /**
+         * Busca posiciones en las que el jugador que tiene el turno tiene unas fichas en la mano (y quizá otras).
+         * @param mascara La máscara de fichas en mano.
+         * @return Esta consulta.
+         */
+        public Consulta conFichasEnMano(int mascara) {
+            this.fichasEnMano = mascara;
+            return this;
+        }
+    }
+
+    /**
+     * Abre un fichero de posiciones y su índice, construyendo el índice si no existe o es de una versión anterior del fichero.
+     * @param f El fichero de posiciones.
+     * @throws IOException Si no se puede leer el fichero o su tamaño no corresponde a un número entero de posiciones,
+     * o no se puede construir el índice.
+     */
+    public IndicePosiciones(File f) throws IOException {
+        File indice = ficheroIndice(f);
+        if (!indiceValido(f, indice)) {
+            indexar(f);
+        }
+
+        this.fichero = new RandomAccessFile(f, "r");
+        RandomAccessFile i;
+        try {
+            i = new RandomAccessFile(indice, "r");
+        } catch (IOException exc) {
+            fichero.close();
+            throw exc;
+        }
+        this.ficheroIndice = i;
+
+        try {
+            this.numPosiciones = contarPosiciones(f, fichero.length());
+            this.trozos = proyectar(fichero.getChannel(), 0, numPosiciones * RegistroPosiciones.TAM_POSICION,
+                    (long) POSICIONES_POR_TROZO * RegistroPosiciones.TAM_POSICION);
+
+            ByteBuffer cabecera = ficheroIndice.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, TAM_CABECERA_INDICE);
+            this.inicioLista = new long[NUM_LISTAS + 1];
+            for (int l = 0; l <= NUM_LISTAS; ++l) {
+                inicioLista[l] = cabecera.getLong(24 + 8 * l);
+            }
+            this.trozosIndice = proyectar(ficheroIndice.getChannel(), TAM_CABECERA_INDICE, inicioLista[NUM_LISTAS] * 4,
+                    4L << BITS_ENTRADAS_POR_TROZO);
+        } catch (IOException | RuntimeException exc) {
+            try {
+                fichero.close();
+            } finally {
+                ficheroIndice.close();
+            }
+            throw exc;
+        }
+    }
+
+    /**
+     * Construye el índice de un fichero de posiciones, o lo vuelve a construir si ya existía.
+     * Recorre el fichero dos veces: una para saber cuánto ocupa cada lista y otra para escribirlas, así que la memoria que
+     * usa no depende del número de posiciones. El índice se escribe en un fichero temporal que después sustituye al anterior.
+     * @param f El fichero de posiciones.
+     * @throws IOException Si no se puede leer el fichero de posiciones o escribir el índice.
+     */
+    public static void indexar(File f) throws IOException {
+        File indice = ficheroIndice(f);
+        File temporal = new File(indice.getPath() + ".tmp");
+        long fecha = f.lastModified();
+        long[] inicio = new long[NUM_LISTAS + 1];
+        int[] listas = new int[4 + MAX_PUESTOS];
+
+        try (RandomAccessFile entrada = new RandomAccessFile(f, "r");
+                RandomAccessFile salida = new RandomAccessFile(temporal, "rw")) {
+            long posiciones = contarPosiciones(f, entrada.length());
+            MappedByteBuffer[] datos = proyectar(entrada.getChannel(), 0, posiciones * RegistroPosiciones.TAM_POSICION,
+                    (long) POSICIONES_POR_TROZO * RegistroPosiciones.TAM_POSICION);
+            FileChannel canal = salida.getChannel();
+            salida.setLength(0);
+
+            // Primera pasada: contar las entradas de cada lista para saber dónde empieza cada una
+            long[] tam = new long[NUM_LISTAS];
+            for (long n = 0; n < posiciones; ++n) {
+                int numListas = listasDe(datos, n, listas);
+                for (int k = 0; k < numListas; ++k) {
+                    ++tam[listas[k]];
+                }
+            }
+            for (int l = 0; l < NUM_LISTAS; ++l) {
+                inicio[l + 1] = inicio[l] + tam[l];
+            }
+
+            // Segunda pasada: escribir las entradas, acumulándolas por lista
+            int[][] bufer = new int[NUM_LISTAS][TAM_BUFER];
+            int[] enBufer = new int[NUM_LISTAS];
+            long[] escritas = new long[NUM_LISTAS];
+            ByteBuffer bytes = ByteBuffer.allocate(4 * TAM_BUFER);
+            for (long n = 0; n < posiciones; ++n) {
+                int numListas = listasDe(datos, n, listas);
+                for (int k = 0; k < numListas; ++k) {
+                    int l = listas[k];
+                    bufer[l][enBufer[l]++] = (int) n;
+                    if (enBufer[l] == TAM_BUFER) {
+                        escribirEntradas(canal, bytes, bufer[l], enBufer[l], inicio[l] + escritas[l]);
+                        escritas[l] += enBufer[l];
+                        enBufer[l] = 0;
+                    }
+                }
+            }
+            for (int l = 0; l < NUM_LISTAS; ++l) {
+                escribirEntradas(canal, bytes, bufer[l], enBufer[l], inicio[l] + escritas[l]);
+            }
+
+            ByteBuffer cabecera = ByteBuffer.allocate(TAM_CABECERA_INDICE);
+            cabecera.putInt(MAGICO_INDICE).putInt(NUM_LISTAS).putLong(posiciones).putLong(fecha);
+            for (long l : inicio) {
+                cabecera.putLong(l);
+            }
+            cabecera.flip();
+            while (cabecera.hasRemaining()) {
+                canal.write(cabecera, cabecera.position());
+            }
+            canal.force(true);
+        }
+
+        Files.move(temporal.toPath(), indice.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Devuelve el número de posiciones guardadas en el fichero.
+     * @return El número de posiciones.
+     */
+    public long getNumPosiciones() {
+        return numPosiciones;
+    }
+
+    /**
+     * Busca las posiciones que cumplen una consulta, en el orden en que están guardadas.
+     * @param c La consulta.
+     * @param limite El número máximo de posiciones a devolver.
+     * @return Las posiciones encontradas.
+     */
+    public List<Posicion> buscar(Consulta c, int limite) {
+        List<Posicion> toret = new ArrayList<>();
+        recorrer(c, limite, toret);
+        return toret;
+    }
+
+    /**
+     * Cuenta las posiciones que cumplen una consulta.
+     * @param c La consulta.
+     * @return El número de posiciones encontradas.
+     */
+    public long contar(Consulta c) {
+        return recorrer(c, 0, null);
+    }
+
+    /**
+     * Cierra el fichero de posiciones y su índice.
+     * @throws IOException Si hay errores al cerrarlos.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            fichero.close();
+        } finally {
+            ficheroIndice.close();
+        }
+    }
+
+    /**
+     * Consulta un fichero de posiciones desde la línea de órdenes y muestra cuántas posiciones cumplen las condiciones dadas,
+     * y las primeras de ellas. Los puestos empiezan en 1. Los turnos se dan como un único turno ({@code turnos=T}), un rango
+     * ({@code turnos=MIN-MAX}) o un rango sin máximo ({@code turnos=MIN-}).
+     * <pre>
+     * java -cp JavaDominoes.jar juegodomino.IndicePosiciones &lt;fichero&gt; [extremos=A-B] [turnos=T|MIN-|MIN-MAX] [monton=N] [puesto=P] [ganador=P]
+     * </pre>
+     * @param args El fichero y las condiciones.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: IndicePosiciones <fichero> [extremos=A-B] [turnos=T|MIN-|MIN-MAX] [monton=N] [puesto=P] [ganador=P]");
+            System.exit(2);
+        }
+
+        try {
+            Consulta c = new Consulta();
+            for (int k = 1; k < args.length; ++k) {
+                String[] partes = args[k].split("=", 2);
+                String[] valores = partes.length == 2 ? partes[1].split("-", 2) : new String[0];
+                switch (partes[0]) {
+                    case "extremos":
+                        c.conExtremos(Integer.parseInt(valores[0]), Integer.parseInt(valores[1]));
+                        break;
+                    case "turnos":
+                        // Un solo turno es el mínimo y el máximo, y un máximo vacío es que no lo hay
+                        String maximo = valores.length > 1 ? valores[1] : valores[0];
+                        c.conTurnos(Integer.parseInt(valores[0]), maximo.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(maximo));
+                        break;
+                    case "monton":
+                        c.conMonton(Integer.parseInt(valores[0]));
+                        break;
+                    case "puesto":
+                        c.conPuesto(Integer.parseInt(valores[0]) - 1);
+                        break;
+                    case "ganador":
+                        c.conGanador(Integer.parseInt(valores[0]) - 1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Condición desconocida: " + args[k]);
+                }
+            }
+
+            long inicio = System.nanoTime();
+            try (IndicePosiciones indice = new IndicePosiciones(new File(args[0]))) {
+                long abierto = System.nanoTime();
+                long n = indice.contar(c);
+                List<Posicion> primeras = indice.buscar(c, 10);
+                long fin = System.nanoTime();
+
+                System.out.printf("%d posiciones, índice abierto en %d ms. %d cumplen la consulta (%.2f ms):%n",
+                        indice.getNumPosiciones(), (abierto - inicio) / 1000000, n, (fin - abierto) / 1e6);
+                for (Posicion p : primeras) {
+                    System.out.println(p);
+                }
+            }
+        } catch (IOException | RuntimeException exc) {
+            System.err.println("Error en la consulta: " + exc.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Recorre las posiciones que cumplen una consulta, intersectando los recorridos de las características que restringe.
+     * El recorrido más corto va por delante, y cada uno de los demás se adelanta hasta su posición actual; si alguno se pasa,
+     * el más corto salta hasta donde quedó ese.
+     * @param c La consulta.
+     * @param limite El número máximo de posiciones a guardar en {@code encontradas}.
+     * @param encontradas Donde guardar las posiciones encontradas, o {@code null} para solo contarlas.
+     * @return El número de posiciones encontradas.
+     */
+    private long recorrer(Consulta c, int limite, List<Posicion> encontradas) {
+        List<Recorrido> recorridos = recorridos(c);
+        boolean comprobarTurnos = false;
+        long toret = 0;
+
+        for (int k = 1; k < recorridos.size(); ++k) {
+            if (recorridos.get(k) instanceof Union && ((Union) recorridos.get(k)).listas.length > MAX_LISTAS_UNION) {
+                recorridos.remove(k);
+                comprobarTurnos = true;
+            }
+        }
+        boolean comprobar = comprobarTurnos || c.fichasJugadas != 0 || c.fichasEnMano != 0;
+
+        if (recorridos.size() == 1 && !comprobar && encontradas == null) {
+            // Una sola lista ya es la respuesta
+            toret = recorridos.get(0).getTam();
+        } else {
+            Recorrido guia = recorridos.get(0);
+            long n = guia.actual();
+
+            while (n != FIN && (encontradas == null || encontradas.size() < limite)) {
+                long siguiente = n;
+                for (int k = 1; k < recorridos.size() && siguiente == n; ++k) {
+                    Recorrido r = recorridos.get(k);
+                    r.avanzarHasta(n);
+                    siguiente = r.actual();
+                }
+
+                if (siguiente == n) {
+                    if (!comprobar || cumple(n, c, comprobarTurnos)) {
+                        ++toret;
+                        if (encontradas != null) {
+                            encontradas.add(leer(n));
+                        }
+                    }
+                    siguiente = n + 1;
+                }
+                guia.avanzarHasta(siguiente);
+                n = guia.actual();
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene los recorridos de las características indexadas que restringe una consulta, de más corto a más largo.
+     * @param c La consulta.
+     * @return Los recorridos. Si la consulta no restringe ninguna característica indexada, el de todas las posiciones.
+     */
+    private List<Recorrido> recorridos(Consulta c) {
+        List<Recorrido> toret = new ArrayList<>();
+        Recorrido vacio = new Lista(0, 0);
+
+        if (c.extremoA >= 0) {
+            toret.add(c.extremoB <= Mesa.SIN_EXTREMO
+                    ? new Lista(LISTAS_EXTREMOS + codigoExtremos(c.extremoA, c.extremoB)) : vacio);
+        }
+        if (c.monton >= 0) {
+            toret.add(c.monton < LISTAS_PUESTO - LISTAS_MONTON ? new Lista(LISTAS_MONTON + c.monton) : vacio);
+        }
+        if (c.puesto >= 0) {
+            toret.add(c.puesto < MAX_PUESTOS ? new Lista(LISTAS_PUESTO + c.puesto) : vacio);
+        }
+        if (c.ganador >= 0) {
+            toret.add(c.ganador < MAX_PUESTOS ? new Lista(LISTAS_GANADOR + c.ganador) : vacio);
+        }
+
+        int numTurnos = LISTAS_MONTON - LISTAS_TURNO;
+        if (c.turnoMinimo > 0 || c.turnoMaximo < numTurnos - 1) {
+            // Solo hacen falta las listas de turnos que tienen alguna posición
+            List<Lista> turnos = new ArrayList<>();
+            for (int t = Math.max(0, c.turnoMinimo); t <= Math.min(c.turnoMaximo, numTurnos - 1); ++t) {
+                Lista l = new Lista(LISTAS_TURNO + t);
+                if (l.getTam() > 0) {
+                    turnos.add(l);
+                }
+            }
+            toret.add(turnos.size() == 1 ? turnos.get(0) : turnos.isEmpty() ? vacio : new Union(turnos));
+        }
+
+        if (toret.isEmpty()) {
+            toret.add(new Todas());
+        }
+        toret.sort(Comparator.comparingLong(Recorrido::getTam));
+
+        return toret;
+    }
+
+    /**
+     * Comprueba si una posición cumple las condiciones de una consulta que no se resolvieron con el índice: las máscaras
+     * de fichas y, si se indica, los turnos.
+     * @param n El número de la posición.
+     * @param c La consulta.
+     * @param comprobarTurnos {@code true} si hay que comprobar los turnos, {@code false} si no.
+     * @return {@code true} si las cumple, {@code false} si no.
+     */
+    private boolean cumple(long n, Consulta c, boolean comprobarTurnos) {
+        MappedByteBuffer b = trozos[(int) (n / POSICIONES_POR_TROZO)];
+        int base = (int) (n % POSICIONES_POR_TROZO) * RegistroPosiciones.TAM_POSICION;
+        int turno = b.get(base + 16) & 0xFF;
+
+        return (!comprobarTurnos || (turno >= c.turnoMinimo && turno <= c.turnoMaximo))
+                && (b.getInt(base + 8) & c.fichasJugadas) == c.fichasJugadas
+                && (b.getInt(base + 12) & c.fichasEnMano) == c.fichasEnMano;
+    }
+
+    /**
+     * Lee una posición del fichero.
+     * @param n El número de la posición.
+     * @return La posición leída.
+     */
+    private Posicion leer(long n) {
+        MappedByteBuffer b = trozos[(int) (n / POSICIONES_POR_TROZO)];
+        int base = (int) (n % POSICIONES_POR_TROZO) * RegistroPosiciones.TAM_POSICION;
+
+        return new Posicion(b.getLong(base), b.getInt(base + 8), b.getInt(base + 12), b.get(base + 16) & 0xFF,
+                b.get(base + 17), b.get(base + 18), b.get(base + 19), b.get(base + 20) & 0xFF, b.get(base + 21) & 0xFF);
+    }
+
+    /**
+     * Lee una entrada de las listas del índice.
+     * @param i El número de la entrada, contando desde la primera de la primera lista.
+     * @return El número de posición guardado en la entrada.
+     */
+    private long entrada(long i) {
+        return trozosIndice[(int) (i >>> BITS_ENTRADAS_POR_TROZO)].getInt((int) (i & ((1 << BITS_ENTRADAS_POR_TROZO) - 1)) << 2)
+                & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Obtiene las listas del índice en las que va una posición.
+     * @param datos El fichero de posiciones proyectado en memoria.
+     * @param n El número de la posición.
+     * @param listas Donde guardar las listas.
+     * @return El número de listas guardadas en {@code listas}.
+     */
+    private static int listasDe(MappedByteBuffer[] datos, long n, int[] listas) {
+        MappedByteBuffer b = datos[(int) (n / POSICIONES_POR_TROZO)];
+        int base = (int) (n % POSICIONES_POR_TROZO) * RegistroPosiciones.TAM_POSICION + 16;
+        int ganadores = b.get(base + 5) & 0xFF;
+        int toret = 0;
+
+        listas[toret++] = LISTAS_TURNO + (b.get(base) & 0xFF);
+        listas[toret++] = LISTAS_PUESTO + (b.get(base + 1) & (MAX_PUESTOS - 1));
+        listas[toret++] = LISTAS_EXTREMOS + codigoExtremos(b.get(base + 2), b.get(base + 3));
+        listas[toret++] = LISTAS_MONTON + (b.get(base + 4) & 0xFF);
+        for (int p = 0; p < MAX_PUESTOS; ++p) {
+            if ((ganadores & (1 << p)) != 0) {
+                listas[toret++] = LISTAS_GANADOR + p;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Escribe entradas de una lista en el fichero de índice.
+     * @param canal El fichero de índice.
+     * @param bytes Un búfer donde caben todas las entradas.
+     * @param entradas Las entradas a escribir.
+     * @param num El número de entradas a escribir.
+     * @param primera El número de entrada de la primera, contando desde la primera de la primera lista.
+     * @throws IOException Si no se puede escribir en el fichero.
+     */
+    private static void escribirEntradas(FileChannel canal, ByteBuffer bytes, int[] entradas, int num, long primera)
+            throws IOException {
+        bytes.clear();
+        bytes.asIntBuffer().put(entradas, 0, num);
+        bytes.limit(4 * num);
+
+        long posicion = TAM_CABECERA_INDICE + 4 * primera;
+        while (bytes.hasRemaining()) {
+            posicion += canal.write(bytes, posicion);
+        }
+    }
+
+    /**
+     * Comprueba si el índice de un fichero de posiciones existe y corresponde a su contenido actual.
+     * @param f El fichero de posiciones.
+     * @param indice El fichero de índice.
+     * @return {@code true} si se puede usar el índice, {@code false} si hay que construirlo.
+     * @throws IOException Si no se puede leer el índice.
+     */
+    private static boolean indiceValido(File f, File indice) throws IOException {
+        boolean toret = indice.isFile() && indice.length() >= TAM_CABECERA_INDICE;
+
+        if (toret) {
+            try (RandomAccessFile i = new RandomAccessFile(indice, "r")) {
+                toret = i.readInt() == MAGICO_INDICE && i.readInt() == NUM_LISTAS
+                        && i.readLong() * RegistroPosiciones.TAM_POSICION == f.length() && i.readLong() == f.lastModified();
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Calcula el número de posiciones de un fichero de posiciones a partir de su tamaño.
+     * @param f El fichero de posiciones.
+     * @param longitud El tamaño del fichero.
+     * @return El número de posiciones.
+     * @throws IOException Si el tamaño no corresponde a un número entero de posiciones, o hay demasiadas.
+     */
+    private static long contarPosiciones(File f, long longitud) throws IOException {
+        if (longitud % RegistroPosiciones.TAM_POSICION != 0 || longitud / RegistroPosiciones.TAM_POSICION > MAX_POSICIONES) {
+            throw new IOException("El fichero " + f + " no es un fichero de posiciones válido.");
+        }
+        return longitud / RegistroPosiciones.TAM_POSICION;
+    }
+
+    /**
+     * Proyecta en memoria una parte de un fichero, en trozos, ya que cada proyección está limitada a 2 GiB.
+     * @param canal El fichero.
+     * @param inicio El byte donde empieza la parte a proyectar.
+     * @param longitud El número de bytes a proyectar.
+     * @param tamTrozo El número de bytes de cada trozo.
+     * @return Los trozos proyectados, en orden.
+     * @throws IOException Si no se puede proyectar el fichero.
+     */
+    private static MappedByteBuffer[] proyectar(FileChannel canal, long inicio, long longitud, long tamTrozo) throws IOException {
+        MappedByteBuffer[] toret = new MappedByteBuffer[(int) ((longitud + tamTrozo - 1) / tamTrozo)];
+
+        for (int k = 0; k < toret.length; ++k) {
+            long desplazamiento = k * tamTrozo;
+            toret[k] = canal.map(FileChannel.MapMode.READ_ONLY, inicio + desplazamiento, Math.min(longitud - desplazamiento, tamTrozo));
+        }
+
+        return toret;
+    }
+
+    /**
+     * Obtiene el fichero de índice de un fichero de posiciones.
+     * @param f El fichero de posiciones.
+     * @return El fichero de índice, en el mismo directorio y con extensión {@code .idx}.
+     */
+    static File ficheroIndice(File f) {
+        return new File(f.getAbsoluteFile().getParentFile(), f.getName().replaceFirst("\\.dat$", "") + ".idx");
+    }
+
+    /**
+     * Codifica un par de extremos del tablero sin tener en cuenta su orden, para indexar las listas por extremos.
+     * @param a Uno de los extremos.
+     * @param b El otro extremo.
+     * @return El código de los extremos.
+     */
+    private static int codigoExtremos(int a, int b) {
+        return Math.min(a, b) * 8 + Math.max(a, b);
+    }
+}
@@ -1,8 +1,15 @@
 package juegodomino;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Clase de control de la ejecución del juego de dominó.
@@ -20,12 +27,38 @@ public final class Juego {
     /**
      * Jugadas que se pueden realizar.
      */
-    private static enum Jugadas { PONER, ROBAR, PASAR };
+    static enum Jugadas { PONER, ROBAR, PASAR };
     
     private static final Scanner TECLADO = JuegoDomino.getTeclado();
+    /**
+     * Tiempo máximo para cada jugada, en segundos, tomado de la propiedad del sistema {@code juegodomino.plazoJugada}.
+     * {@code 0} si no hay límite.
+     */
+    private static final int PLAZO_JUGADA = Integer.getInteger("juegodomino.plazoJugada", 0);
+    /**
+     * Tiempo máximo para calcular la sugerencia de jugada, en milisegundos.
+     */
+    private static final long PLAZO_SUGERENCIA = 200;
+    private static final Estrategia ESTRATEGIA_SUGERENCIA = new EstrategiaBusqueda();
+    /**
+     * Fichero donde se retransmite la partida, tomado de la propiedad del sistema {@code juegodomino.retransmision}.
+     * {@code null} si no se retransmite.
+     */
+    private static final String FICHERO_RETRANSMISION = System.getProperty("juegodomino.retransmision");
 
     private static Mesa mesa;
     private static int[] puntuaciones;
+    private static Reloj[] relojes;
+    /**
+     * Líneas leídas del teclado por un hilo aparte, para poder esperarlas con un plazo. Es {@code null} si no hay plazo por jugada.
+     */
+    private static BlockingQueue<String> lineasTeclado;
+    /**
+     * Marca que deja el hilo de lectura en {@link #lineasTeclado} al acabarse la entrada. Se distingue por identidad
+     * de cualquier línea leída.
+     */
+    private static final String FIN_ENTRADA = new String();
+    private static boolean finEntrada;
 
     /**
      * Ejecuta una partida de dominó.
@@ -48,6 +81,18 @@ public final class Juego {
         // Inicializaciones
         mesa = new Mesa(numJug);
         puntuaciones = new int[numJug];
+        relojes = new Reloj[numJug];
+        for (int k = 0; k < numJug; ++k) {
+            relojes[k] = new Reloj(PLAZO_JUGADA * 1000L);
+        }
+        if (PLAZO_JUGADA > 0) {
+            iniciarLecturaTeclado();
+            System.out.println("\nCada jugada tiene un límite de " + PLAZO_JUGADA + " segundos. Si se acaba, se pondrá la ficha sugerida.");
+        }
+        
+        // Los espectadores que lleguen tarde se sincronizan con las tramas clave
+        Retransmision retransmision = iniciarRetransmision();
+        mesa.getFlujo().publicarClave(0);
         
         // Control de turnos
         int i = 0;
@@ -66,11 +111,13 @@ public final class Juego {
             System.out.println(j);
             System.out.println("\nPuedes jugar con:\n" + fichasJugables + "\n");
 
-            switch (decidirJugada(fichasJugables.size() > 0)) {
+            switch (decidirJugada(fichasJugables)) {
                 case PONER:
-                    Ficha fichaElegida = elegirFicha(fichasJugables);
+                    long plazo = relojes[i].iniciarJugada();
+                    Ficha fichaElegida = elegirFicha(j, fichasJugables, plazo);
+                    relojes[i].terminarJugada();
                     System.out.println("Has puesto la ficha " + fichaElegida + ".");
-                    j.jugarFicha(fichaElegida, fichaElegida.encajaEn(mesa, true));
+                    mesa.getFlujo().publicarJugada(i, fichaElegida, ponerFicha(mesa, j, fichaElegida), 0);
                     break;
                 case ROBAR:
                     Ficha fichaRobada = j.robarFicha();
@@ -83,25 +130,27 @@ public final class Juego {
                         // Girarla si hace falta
                         // No se hizo antes para mostrar mensajes consistentes al usuario
                         // (No es lo mismo poner la ficha [ 1 | 6 ] que [ 6 | 1 ], p. ej.)
-                        fichaRobada.encajaEn(mesa, true);
-                        j.jugarFicha(fichaRobada, encajeFicha);
+                        mesa.getFlujo().publicarJugada(i, fichaRobada, ponerFicha(mesa, j, fichaRobada), 1);
                     } else {
                         System.out.println("La ficha robada no se puede jugar.");
+                        mesa.getFlujo().publicarJugada(i, null, Lados.NINGUNO, 1);
                     }
                     
                     break;
                 case PASAR:
+                    mesa.getFlujo().publicarJugada(i, null, Lados.NINGUNO, 0);
                     break;
             }
             System.out.print("\nPresiona Entrar para pasar al siguiente turno.");
-            TECLADO.nextLine();    // Esperar a que el usuario pulse Entrar
+            leerLinea(Long.MAX_VALUE);    // Esperar a que el usuario pulse Entrar
             System.out.println();
             
             // Pasar al siguiente jugador
             if ((++i) > numJug - 1) {
                 i = 0;
             }
-        } while (!esCierre() && !esDomino(j));
+        } while (!esCierre(mesa) && !esDomino(j));
+        terminarRetransmision(retransmision);
 
         // Mostrar cómo acabó la partida
         System.out.println("\n\n\t\t* * * FIN DE LA PARTIDA * * *\nMESA:\n" + mesa);
@@ -113,20 +162,26 @@ public final class Juego {
                         + " ficha(s): \n" + mesa.getJugadores()[i]);
             }
             
-            if (!esDomino(j) && esCierre()) {
+            if (!esDomino(j) && esCierre(mesa)) {
                 puntuaciones[i] = calcularPuntuacion(mesa.getJugadores()[i]);
                 System.out.println("PUNTUACIÓN: " + puntuaciones[i]);
             }
+            
+            if (relojes[i].tieneLimite()) {
+                System.out.println(mesa.getJugadores()[i].getNombre() + " ha usado " + relojes[i].getTiempoUsado() / 1000.0
+                        + " segundos en " + relojes[i].getJugadas() + " jugada(s).");
+            }
         }
         
         // Determinar y mostrar el ganador
+        List<Jugador> ganadores = obtenerGanadores(mesa, j);
         if (esDomino(j)) {
             // Victoria por dominó
             System.out.println("\n" + j.getNombre() + " dominó la partida.\n\n¡¡ENHORABUENA, HAS GANADO!!");
         } else {
             // Victoria por cierre
             System.out.println("\n");
-            List<Jugador> ganadoresCierre = obtenerGanadoresCierre();
+            List<Jugador> ganadoresCierre = obtenerGanadoresCierre(mesa);
             
             // Ver si hubo empate o no
             if (ganadoresCierre.size() == 1) {
@@ -146,49 +201,104 @@ public final class Juego {
                 }
                 System.out.print(" han empatado.");
                 
-                // Ver si entre los que empataron está el jugador que lleva la mano
-                int k = 0;
-                String nombreMano = mesa.getJugadores()[0].getNombre();
-                Jugador jugadorActual = ganadoresCierre.get(k);
-                
-                while (!jugadorActual.getNombre().equals(nombreMano) && k < ganadoresCierre.size()) {
-                    jugadorActual = ganadoresCierre.get(k++);
-                }
-                
-                // Finalmente, determinar el ganador
-                if (jugadorActual.getNombre().equals(nombreMano)) {
-                    System.out.println("Gana el jugador que lleva la mano, " + nombreMano + ".\n\n¡¡ENHORABUENA!!");
+                // Si entre los que empataron está el jugador que lleva la mano, gana solo él
+                if (ganadores.size() == 1) {
+                    System.out.println("Gana el jugador que lleva la mano, " + ganadores.get(0).getNombre() + ".\n\n¡¡ENHORABUENA!!");
                 } else {
                     System.out.println("Ganan todos los jugadores que han empatado.\n\n¡¡ENHORABUENA A TODOS!!");
                 }
             }
         }
         
+        guardarResultado(ganadores);
         System.out.println("\n\n¡Gracias por jugar!\n");
     }
     
+    /**
+     * Empieza a retransmitir la mesa al fichero indicado en {@code juegodomino.retransmision}, si se indicó alguno.
+     * Si no se puede crear el fichero, la partida se juega sin retransmitir.
+     * @return La retransmisión, o {@code null} si no se retransmite.
+     */
+    private static Retransmision iniciarRetransmision() {
+        Retransmision toret = null;
+        
+        if (FICHERO_RETRANSMISION != null) {
+            try {
+                toret = new Retransmision(mesa, new File(FICHERO_RETRANSMISION));
+                System.out.println("\nLa partida se retransmite en " + FICHERO_RETRANSMISION + ".");
+            } catch (IOException exc) {
+                System.out.println("\nNo se pudo iniciar la retransmisión: " + exc.getMessage());
+            }
+        }
+        
+        return toret;
+    }
+    
+    /**
+     * Termina la retransmisión de la mesa, si la hay, escribiendo las jugadas que falten.
+     * @param r La retransmisión, o {@code null} si no se retransmite.
+     */
+    private static void terminarRetransmision(Retransmision r) {
+        if (r != null) {
+            try {
+                r.close();
+            } catch (IOException exc) {
+                System.out.println("\nNo se pudo completar la retransmisión: " + exc.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Registra el resultado de la partida en la clasificación guardada en el directorio de trabajo y muestra
+     * las puntuaciones actualizadas. Si no se puede acceder a la clasificación, la partida no cuenta en ella.
+     * @param ganadores Los jugadores que ganaron la partida.
+     */
+    private static void guardarResultado(List<Jugador> ganadores) {
+        List<String> nombresGanadores = new ArrayList<>(ganadores.size());
+        List<String> nombresPerdedores = new ArrayList<>(mesa.getJugadores().length);
+        
+        for (Jugador jugador : mesa.getJugadores()) {
+            if (ganadores.contains(jugador)) {
+                nombresGanadores.add(jugador.getNombre());
+            } else {
+                nombresPerdedores.add(jugador.getNombre());
+            }
+        }
+        
+        try (Clasificacion c = new Clasificacion(new File("."))) {
+            c.registrar(new Clasificacion.Resultado(nombresGanadores, nombresPerdedores));
+            
+            System.out.println("\n\n\t* * * CLASIFICACIÓN * * *");
+            for (Jugador jugador : mesa.getJugadores()) {
+                System.out.printf("%s: %.0f puntos (%d de %d partidas ganadas)%n", jugador.getNombre(),
+                        c.getPuntuacion(jugador.getNombre()), c.getVictorias(jugador.getNombre()), c.getPartidas(jugador.getNombre()));
+            }
+        } catch (IOException | IllegalStateException exc) {
+            System.out.println("\nNo se pudo guardar el resultado en la clasificación: " + exc.getMessage());
+        }
+    }
+    
     /**
      * Le muestra al jugador la jugada que puede realizar.
-     * @param puedePoner Representa si el jugador puede poner fichas o no. {@code true} si y solo si puede.
+     * @param fichasJugables Las fichas que puede poner el jugador.
      * @return Un enumerado {@link Jugadas} representando la jugada a realizar.
      */
-    private static Jugadas decidirJugada(boolean puedePoner) {
-        Jugadas toret;
+    private static Jugadas decidirJugada(List<Ficha> fichasJugables) {
+        Jugadas toret = obtenerJugada(mesa, fichasJugables);
 
         System.out.print("Puedes ");
         
         // Mostrar decisiones posibles
-        if (puedePoner) {
-            System.out.print("poner una ficha.");
-            toret = Jugadas.PONER;
-        } else {
-            if (mesa.getMonton().getNumFichas() == 0) {
-                System.out.print("pasar turno.");
-                toret = Jugadas.PASAR;
-            } else {
+        switch (toret) {
+            case PONER:
+                System.out.print("poner una ficha.");
+                break;
+            case ROBAR:
                 System.out.print("robar una ficha del montón.");
-                toret = Jugadas.ROBAR;
-            }
+                break;
+            default:
+                System.out.print("pasar turno.");
+                break;
         }
         System.out.println();
         
@@ -196,20 +306,74 @@ public final class Juego {
     }
     
     /**
-     * Le pide al jugador que elija una ficha de su mano para jugar.
+     * Determina la jugada que le toca hacer a un jugador: poner una ficha si puede, robar si no puede y quedan fichas
+     * en el montón, y pasar si no.
+     * @param m La mesa de la partida.
+     * @param fichasJugables Las fichas que puede poner el jugador.
+     * @return La jugada a realizar.
+     */
+    static Jugadas obtenerJugada(Mesa m, List<Ficha> fichasJugables) {
+        Jugadas toret;
+        
+        if (!fichasJugables.isEmpty()) {
+            toret = Jugadas.PONER;
+        } else if (m.getMonton().getNumFichas() > 0) {
+            toret = Jugadas.ROBAR;
+        } else {
+            toret = Jugadas.PASAR;
+        }
+        
+        return toret;
+    }
+    
+    /**
+     * Pone una ficha de la mano de un jugador en el tablero, en el lado en el que encaje (el izquierdo si encaja en
+     * los dos) y girándola si hace falta.
+     * @param m La mesa de la partida.
+     * @param j El jugador que pone la ficha.
+     * @param f La ficha a poner. Si no encaja en el tablero, se queda en la mano.
+     * @return El lado en el que se puso la ficha, o {@link Lados#NINGUNO} si no encajaba.
+     */
+    static Lados ponerFicha(Mesa m, Jugador j, Ficha f) {
+        Lados toret = f.encajaEn(m, true);
+        
+        j.jugarFicha(f, toret);
+        
+        return toret;
+    }
+    
+    /**
+     * Le pide al jugador que elija una ficha de su mano para jugar. Si la jugada tiene límite de tiempo, le sugiere la que
+     * recomienda {@link EstrategiaBusqueda}, y si se acaba el plazo antes de que elija, se juega la ficha sugerida.
+     * @param j El jugador que elige.
      * @param fichasJugables Fichas que puede jugar.
+     * @param plazo El instante, según {@link System#nanoTime()}, en el que debe de estar elegida la ficha.
+     * {@link Long#MAX_VALUE} si no hay límite.
      * @return La ficha que el jugador quiere jugar.
      */
-    private static Ficha elegirFicha(ArrayList<Ficha> fichasJugables) {
+    private static Ficha elegirFicha(Jugador j, ArrayList<Ficha> fichasJugables, long plazo) {
         int i = 0;
         
         if (fichasJugables.size() > 1) {
+            Ficha sugerida = null;
+            if (plazo != Long.MAX_VALUE) {
+                sugerida = ESTRATEGIA_SUGERENCIA.elegirFicha(j, mesa, fichasJugables,
+                        Math.min(plazo, System.nanoTime() + PLAZO_SUGERENCIA * 1000000));
+                System.out.println("Sugerencia: la ficha" + sugerida + "[" + (fichasJugables.indexOf(sugerida) + 1) + "].");
+            }
             do {
-                try {
-                    System.out.print("\nDe las fichas con las que puedes jugar, ¿cuál quieres poner? [1 - " + fichasJugables.size() + "]: ");
-                    i = Integer.parseUnsignedInt(TECLADO.nextLine()) - 1;
-                } catch (NumberFormatException exc) {
-                    i = Integer.MIN_VALUE;
+                System.out.print("\nDe las fichas con las que puedes jugar, ¿cuál quieres poner? [1 - " + fichasJugables.size() + "]: ");
+                String linea = leerLinea(plazo);
+                
+                if (linea == null) {
+                    System.out.println("\nSe acabó el tiempo.");
+                    i = fichasJugables.indexOf(sugerida);
+                } else {
+                    try {
+                        i = Integer.parseUnsignedInt(linea) - 1;
+                    } catch (NumberFormatException exc) {
+                        i = Integer.MIN_VALUE;
+                    }
                 }
             } while (i < 0 || i >= fichasJugables.size());
         }
@@ -217,21 +381,77 @@ public final class Juego {
         return fichasJugables.get(i);
     }
     
+    /**
+     * Empieza a leer el teclado en un hilo aparte, dejando las líneas leídas en {@link #lineasTeclado}.
+     * A partir de entonces, toda la lectura del teclado se debe hacer con {@link #leerLinea(long)}.
+     */
+    private static void iniciarLecturaTeclado() {
+        if (lineasTeclado == null) {
+            lineasTeclado = new LinkedBlockingQueue<>();
+            Thread lector = new Thread(() -> {
+                try {
+                    while (true) {
+                        lineasTeclado.put(TECLADO.nextLine());
+                    }
+                } catch (NoSuchElementException exc) {
+                    // Fin de la entrada: avisar a quien esté esperando una línea
+                    lineasTeclado.add(FIN_ENTRADA);
+                } catch (InterruptedException exc) {
+                    // No hay más líneas que leer
+                }
+            }, "Lectura del teclado");
+            lector.setDaemon(true);
+            lector.start();
+        }
+    }
+    
+    /**
+     * Lee una línea del teclado, esperando como mucho hasta un plazo.
+     * @param plazo El instante, según {@link System#nanoTime()}, hasta el que esperar. {@link Long#MAX_VALUE} para esperar sin límite.
+     * @return La línea leída, o {@code null} si se acabó el plazo o la entrada.
+     */
+    private static String leerLinea(long plazo) {
+        String toret;
+        
+        if (lineasTeclado == null) {
+            toret = TECLADO.nextLine();
+        } else if (finEntrada) {
+            toret = null;
+        } else {
+            try {
+                toret = plazo == Long.MAX_VALUE
+                        ? lineasTeclado.take()
+                        : lineasTeclado.poll(plazo - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                toret = null;
+            }
+            
+            if (toret == FIN_ENTRADA) {
+                finEntrada = true;
+                toret = null;
+            }
+        }
+        
+        return toret;
+    }
+    
     /**
      * Comprueba si la partida finaliza por cierre (es decir, si los números que están en los extremos han sido jugados 7 veces).
+     * @param m La mesa de la partida.
      * @return {@code true} en caso afirmativo, {@code false} en caso contrario.
      */
-    private static boolean esCierre() {
-        boolean toret = mesa.getPrimeraFicha() != null;
+    static boolean esCierre(Mesa m) {
+        int extremoIzq = m.getExtremoIzquierdo();
+        int extremoDer = m.getExtremoDerecho();
+        boolean toret = extremoIzq != Mesa.SIN_EXTREMO;
 
         if (toret) {
-            int extremoIzq = mesa.getPrimeraFicha().getNumero1();
-            int extremoDer = mesa.getUltimaFicha().getNumero2();
             int vecesJugadoIzq = 0;
             int vecesJugadoDer = 0;
             
-            for (int i = 0; i < mesa.getNumFichasTablero(); ++i) {
-                Ficha f = mesa.getFicha(i);
+            for (int i = 0; i < m.getNumFichasTablero(); ++i) {
+                Ficha f = m.getFicha(i);
                 
                 // Ver cuántas veces se jugó el extremo izquierdo
                 if (f.getNumero1() == extremoIzq || f.getNumero2() == extremoIzq) {
@@ -255,7 +475,7 @@ public final class Juego {
      * @param j Jugador a comprobar.
      * @return {@code true} si hizo dominó, {@code false} en caso contrario.
      */
-    private static boolean esDomino(Jugador j) {
+    static boolean esDomino(Jugador j) {
         return j.getNumFichasMano() == 0;
     }
     
@@ -264,13 +484,27 @@ public final class Juego {
      * @param j El jugador a calcular su puntuación.
      * @return La puntuación del jugador.
      */
-    private static int calcularPuntuacion(Jugador j) {
-        int toret = 0;
-
-        for (int i = 0; i < j.getNumFichasMano(); ++i) {
-            Ficha f = j.getFichaMano(i);
-            toret += f.getNumero1();
-            toret += f.getNumero2();
+    static int calcularPuntuacion(Jugador j) {
+        return j.getPuntosMano();
+    }
+    
+    /**
+     * Determina quién ganó una partida terminada: el jugador que hizo dominó o, si se cerró, los de menor puntuación.
+     * En caso de empate, si el jugador que lleva la mano está entre ellos, gana solo él.
+     * @param m La mesa de la partida.
+     * @param ultimo El jugador que hizo la última jugada.
+     * @return Los jugadores que ganaron la partida.
+     */
+    static List<Jugador> obtenerGanadores(Mesa m, Jugador ultimo) {
+        List<Jugador> toret;
+        
+        if (esDomino(ultimo)) {
+            toret = Collections.singletonList(ultimo);
+        } else {
+            toret = obtenerGanadoresCierre(m);
+            if (toret.contains(m.getJugadores()[0])) {
+                toret = Collections.singletonList(m.getJugadores()[0]);
+            }
         }
         
         return toret;
@@ -278,23 +512,26 @@ public final class Juego {
     
     /**
      * Devuelve el jugador ganador en caso de cierre (aquel con menor puntuación).
+     * @param m La mesa de la partida.
      * @return Un array con los jugadores que han ganado. Normalmente solo gana uno, pero en caso de empate puede haber más.
      */
-    private static List<Jugador> obtenerGanadoresCierre() {
+    static List<Jugador> obtenerGanadoresCierre(Mesa m) {
         Jugador pivote = null;
-        ArrayList<Jugador> toret = new ArrayList<>(mesa.getJugadores().length);
+        int puntuacionPivote = Integer.MAX_VALUE;
+        ArrayList<Jugador> toret = new ArrayList<>(m.getJugadores().length);
         
         // Ver uno de los jugadores con menos puntuación
-        for (Jugador j : mesa.getJugadores()) {
-            if (pivote == null || calcularPuntuacion(j) < calcularPuntuacion(pivote)) {
+        for (Jugador j : m.getJugadores()) {
+            if (pivote == null || j.getPuntosMano() < puntuacionPivote) {
                 pivote = j;
+                puntuacionPivote = j.getPuntosMano();
             }
         }
         
         // Añadir posibles empates a la lista de ganadores
         toret.add(pivote);
-        for (Jugador j : mesa.getJugadores()) {
-            if (j != pivote && calcularPuntuacion(j) == calcularPuntuacion(pivote)) {
+        for (Jugador j : m.getJugadores()) {
+            if (j != pivote && j.getPuntosMano() == puntuacionPivote) {
                 toret.add(j);
             }
         }
@@ -13,6 +13,13 @@ public final class Jugador {
     private final String nombre;
     private final ArrayList<Ficha> fichasMano;
     private final Mesa mesa;
+    // Posición en fichasMano de cada ficha en mano, por índice de ficha, para borrarlas sin recorrer la mano
+    private final int[] posicionFicha;
+    // Datos de la mano que se mantienen al añadir y borrar fichas
+    private final int[] fichasPorNumero;
+    private int mascaraMano;
+    private int puntosMano;
+    private int numDobles;
     
     /**
      * Inicializa un jugador, con un nombre y mesa determinados, sin fichas en la mano.
@@ -23,6 +30,8 @@ public final class Jugador {
         this.nombre = nombre;
         this.mesa = mesa;
         this.fichasMano = new ArrayList<>(21); // No puede tener más de 21 fichas (28-7)
+        this.posicionFicha = new int[Ficha.NUM_FICHAS];
+        this.fichasPorNumero = new int[Ficha.NUM_VALORES];
     }
 
     /**
@@ -38,7 +47,9 @@ public final class Jugador {
      * @param f La ficha a añadir.
      */
     public void añadirFichaMano(Ficha f) {
+        posicionFicha[f.getIndice()] = fichasMano.size();
         fichasMano.add(f);
+        actualizarDatosMano(f, 1);
     }
     
     /**
@@ -59,12 +70,57 @@ public final class Jugador {
     }
     
     /**
-     * Borra una ficha de la mano del jugador.
+     * Devuelve la máscara de fichas en la mano del jugador.
+     * @return La máscara, con el bit {@link Ficha#getIndice()} activado para cada ficha que tiene en mano.
+     */
+    public int getMascaraMano() {
+        return mascaraMano;
+    }
+    
+    /**
+     * Devuelve la suma de los números de las fichas que el jugador tiene en la mano.
+     * @return Los puntos de la mano.
+     */
+    public int getPuntosMano() {
+        return puntosMano;
+    }
+    
+    /**
+     * Devuelve cuántas fichas de la mano del jugador tienen un número. Los dobles cuentan una sola vez.
+     * @param numero El número, entre 0 y {@code Ficha.NUM_VALORES - 1}.
+     * @return El número de fichas en mano con ese número.
+     */
+    public int getFichasConNumero(int numero) {
+        return fichasPorNumero[numero];
+    }
+    
+    /**
+     * Devuelve el número de dobles que el jugador tiene en la mano.
+     * @return El número de dobles en mano.
+     */
+    public int getNumDobles() {
+        return numDobles;
+    }
+    
+    /**
+     * Borra una ficha de la mano del jugador. Su sitio en la mano pasa a ocuparlo la última ficha.
      * @param f La ficha a borrar.
      * @return {@code true} si fue borrada de la mano, {@code false} si no estaba en la mano.
      */
     public boolean borrarFichaMano(Ficha f) {
-        return fichasMano.remove(f);
+        int indice = f.getIndice();
+        boolean toret = (mascaraMano & (1 << indice)) != 0 && fichasMano.get(posicionFicha[indice]) == f;
+        
+        if (toret) {
+            Ficha ultima = fichasMano.remove(fichasMano.size() - 1);
+            if (ultima != f) {
+                fichasMano.set(posicionFicha[indice], ultima);
+                posicionFicha[ultima.getIndice()] = posicionFicha[indice];
+            }
+            actualizarDatosMano(f, -1);
+        }
+        
+        return toret;
     }
     
     /**
@@ -141,4 +197,23 @@ public final class Jugador {
         
         return toret.toString();
     }
+
+    /**
+     * Actualiza los datos de la mano al añadir o borrar una ficha.
+     * @param f La ficha añadida o borrada.
+     * @param signo 1 si se añadió, -1 si se borró.
+     */
+    private void actualizarDatosMano(Ficha f, int signo) {
+        int a = f.getNumero1();
+        int b = f.getNumero2();
+        
+        mascaraMano ^= 1 << f.getIndice();
+        puntosMano += signo * (a + b);
+        fichasPorNumero[a] += signo;
+        if (a == b) {
+            numDobles += signo;
+        } else {
+            fichasPorNumero[b] += signo;
+        }
+    }
 }
\ No newline at end of file
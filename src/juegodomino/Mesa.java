@@ -10,9 +10,14 @@ import java.util.LinkedList;
  * @author Daniel Gómez Rodríguez
  */
 public final class Mesa {
+    /**
+     * Valor de un extremo cuando no hay fichas en el tablero. No es ninguno de los números de las fichas.
+     */
+    public static final int SIN_EXTREMO = Ficha.NUM_VALORES;
     private final Jugador[] jugadores;
     private final LinkedList<Ficha> fichasTablero;
     private final Monton monton;
+    private final FlujoMesa flujo;
 
     /**
      * Crea una mesa con una serie de jugadores.
@@ -22,11 +27,30 @@ public final class Mesa {
         this.jugadores = new Jugador[numJugadores];
         this.fichasTablero = new LinkedList<>();
         this.monton = new Monton();
+        this.flujo = new FlujoMesa(this);
         
         // Añadir los jugadores a la mesa
         añadirJugadores();
     }
 
+    /**
+     * Crea una mesa sin pedir datos por teclado, con jugadores con los nombres dados y un montón barajado a partir de una semilla.
+     * Las fichas se reparten en el orden de los nombres, y el primer jugador lleva la mano.
+     * @param nombres Los nombres de los jugadores de la mesa. No debe haber nombres repetidos.
+     * @param semilla La semilla con la que se baraja el montón.
+     */
+    public Mesa(String[] nombres, long semilla) {
+        this.jugadores = new Jugador[nombres.length];
+        this.fichasTablero = new LinkedList<>();
+        this.monton = new Monton(semilla);
+        this.flujo = new FlujoMesa(this);
+
+        for (int i = 0; i < jugadores.length; ++i) {
+            jugadores[i] = new Jugador(nombres[i], this);
+            monton.repartirFichas(jugadores[i]);
+        }
+    }
+
     /**
      * Obtiene los jugadores de la mesa.
      * @return Los jugadores de la mesa.
@@ -43,6 +67,14 @@ public final class Mesa {
         return monton;
     }
     
+    /**
+     * Obtiene el flujo de tramas con el estado de la mesa, al que se pueden añadir espectadores.
+     * @return El flujo de la mesa.
+     */
+    public FlujoMesa getFlujo() {
+        return flujo;
+    }
+    
     /**
      * Añade una ficha al principio (lado izquierdo) del tablero. Se cuenta el extremo como jugado.
      * @param f La ficha a añadir.
@@ -74,6 +106,22 @@ public final class Mesa {
     public Ficha getUltimaFicha() {
         return fichasTablero.peekLast();
     }
+
+    /**
+     * Obtiene el número que queda libre en el extremo izquierdo del tablero.
+     * @return El primer número de la primera ficha del tablero, o {@link #SIN_EXTREMO} si no hay fichas en el tablero.
+     */
+    public int getExtremoIzquierdo() {
+        return fichasTablero.isEmpty() ? SIN_EXTREMO : fichasTablero.peekFirst().getNumero1();
+    }
+
+    /**
+     * Obtiene el número que queda libre en el extremo derecho del tablero.
+     * @return El segundo número de la última ficha del tablero, o {@link #SIN_EXTREMO} si no hay fichas en el tablero.
+     */
+    public int getExtremoDerecho() {
+        return fichasTablero.isEmpty() ? SIN_EXTREMO : fichasTablero.peekLast().getNumero2();
+    }
     
     
     /**
@@ -123,6 +171,10 @@ public final class Mesa {
                 
                 if (!nombreLibre) {
                     System.out.println("Ese nombre ya fue elegido por otro jugador. Escribe otro.");
+                } else if (!Clasificacion.nombreValido(nombre)) {
+                    // El nombre identifica al jugador en la clasificación, y tiene que caber entero en ella
+                    System.out.println("Ese nombre es demasiado largo. Escribe otro.");
+                    nombreLibre = false;
                 }
             } while (nombre.isEmpty() || !nombreLibre);
             
@@ -2,6 +2,7 @@ package juegodomino;
 
 import java.util.Collections;
 import java.util.EmptyStackException;
+import java.util.Random;
 import java.util.Stack;
 
 /**
@@ -32,21 +33,38 @@ public final class Monton {
     }
 
     /**
-     * Crea un montón con todas las fichas de dominó posibles.
+     * Crea un montón con todas las fichas de dominó posibles, en orden aleatorio.
      */
     public Monton() {
+        this(new Random());
+    }
+
+    /**
+     * Crea un montón con todas las fichas de dominó posibles, en un orden que solo depende de la semilla dada.
+     * Dos montones creados con la misma semilla reparten las mismas fichas.
+     * @param semilla La semilla con la que se barajan las fichas.
+     */
+    public Monton(long semilla) {
+        this(new Random(semilla));
+    }
+
+    /**
+     * Crea un montón con todas las fichas de dominó posibles, barajadas con el generador de números aleatorios dado.
+     * @param aleatorio El generador de números aleatorios con el que se barajan las fichas.
+     */
+    private Monton(Random aleatorio) {
         this.fichas = new Stack<>();
 
         // Generar todas las combinaciones de fichas posibles
-        // (Hay 7 fichas que contienen cada número)
-        for (int i = 0; i < 7; ++i) {
-            for (int j = i; j < 7; ++j) {
+        // (Hay 7 fichas que contienen cada número. El orden de generación es el de Ficha.indice)
+        for (int i = 0; i < Ficha.NUM_VALORES; ++i) {
+            for (int j = i; j < Ficha.NUM_VALORES; ++j) {
                 fichas.add(new Ficha(i, j));
             }
         }
 
         // Hacer aleatorio el orden de las fichas en el montón
-        Collections.shuffle(fichas);
+        Collections.shuffle(fichas, aleatorio);
     }
 
     /**
@@ -0,0 +1,104 @@
+package juegodomino;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Fichero de posiciones de partidas: guarda, para cada turno de cada partida, la situación de la mesa antes de jugar.
+ * Cada posición ocupa {@link #TAM_POSICION} bytes, así que la posición número {@code n} está en el byte
+ * {@code n * TAM_POSICION} del fichero. {@link IndicePosiciones} permite hacer consultas sobre él.
+ * <p>
+ * Formato de cada posición: semilla de la partida ({@code long}), máscara de fichas jugadas ({@code int}), máscara de fichas
+ * en la mano del jugador que tiene el turno ({@code int}), y un byte para el turno, el puesto del jugador que tiene el turno,
+ * los extremos izquierdo y derecho ({@link Mesa#SIN_EXTREMO} si el tablero está vacío), las fichas en el montón y la máscara de puestos ganadores,
+ * más dos bytes de relleno.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class RegistroPosiciones implements Closeable {
+    /**
+     * Tamaño en bytes de cada posición en el fichero.
+     */
+    public static final int TAM_POSICION = 24;
+    /**
+     * Número máximo de turnos de una partida que se guardan.
+     */
+    private static final int MAX_TURNOS = 255;
+
+    private final DataOutputStream salida;
+    // Turnos de la partida en curso, que no se escriben hasta saber quién ganó
+    private final long[] fichasYMano;
+    private final int[] datosTurno;
+    private long partida;
+    private int turnos;
+
+    /**
+     * Crea un fichero de posiciones vacío, o lo vacía si ya existía.
+     * @param fichero El fichero de posiciones.
+     * @throws IOException Si no se puede crear el fichero.
+     */
+    public RegistroPosiciones(File fichero) throws IOException {
+        this.salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fichero), 1 << 16));
+        this.fichasYMano = new long[MAX_TURNOS];
+        this.datosTurno = new int[MAX_TURNOS];
+    }
+
+    /**
+     * Empieza a guardar una partida, descartando los turnos de la anterior si no se terminó.
+     * @param semilla La semilla de la partida, que la identifica.
+     */
+    public void empezarPartida(long semilla) {
+        partida = semilla;
+        turnos = 0;
+    }
+
+    /**
+     * Guarda la posición al empezar un turno de la partida en curso.
+     * @param puesto El puesto del jugador que tiene el turno.
+     * @param m La mesa de la partida.
+     * @param fichasJugadas La máscara de fichas que hay en el tablero.
+     */
+    public void añadirTurno(int puesto, Mesa m, int fichasJugadas) {
+        if (turnos < MAX_TURNOS) {
+            fichasYMano[turnos] = (long) fichasJugadas << 32 | (m.getJugadores()[puesto].getMascaraMano() & 0xFFFFFFFFL);
+            datosTurno[turnos] = turnos << 24 | puesto << 16 | m.getExtremoIzquierdo() << 12 | m.getExtremoDerecho() << 8 | m.getMonton().getNumFichas();
+            ++turnos;
+        }
+    }
+
+    /**
+     * Termina la partida en curso y escribe todas sus posiciones.
+     * @param ganadores La máscara de puestos que ganaron la partida.
+     * @throws IOException Si no se puede escribir en el fichero.
+     */
+    public void terminarPartida(int ganadores) throws IOException {
+        for (int t = 0; t < turnos; ++t) {
+            int datos = datosTurno[t];
+            salida.writeLong(partida);
+            salida.writeLong(fichasYMano[t]);
+            salida.writeByte(datos >>> 24);
+            salida.writeByte(datos >>> 16);
+            salida.writeByte(datos >>> 12 & 0xF);
+            salida.writeByte(datos >>> 8 & 0xF);
+            salida.writeByte(datos);
+            salida.writeByte(ganadores);
+            salida.writeShort(0);
+        }
+        turnos = 0;
+    }
+
+    /**
+     * Cierra el fichero, escribiendo lo que quede pendiente.
+     * @throws IOException Si no se puede escribir en el fichero.
+     */
+    @Override
+    public void close() throws IOException {
+        salida.close();
+    }
+}
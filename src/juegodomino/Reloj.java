@@ -0,0 +1,64 @@
+package juegodomino;
+
+/**
+ * Reloj de un jugador: limita el tiempo que tiene para cada jugada y cuenta el tiempo que lleva usado en la partida.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class Reloj {
+    private final long limiteJugada;
+    private long inicioJugada;
+    private long tiempoUsado;
+    private int jugadas;
+
+    /**
+     * Crea un reloj parado, sin tiempo usado.
+     * @param limiteJugadaMs El tiempo máximo para cada jugada, en milisegundos. {@code 0} si no hay límite.
+     */
+    public Reloj(long limiteJugadaMs) {
+        this.limiteJugada = limiteJugadaMs * 1000000;
+    }
+
+    /**
+     * Indica si el reloj limita el tiempo de cada jugada.
+     * @return {@code true} si hay límite, {@code false} si no.
+     */
+    public boolean tieneLimite() {
+        return limiteJugada > 0;
+    }
+
+    /**
+     * Pone en marcha el reloj para una jugada.
+     * @return El plazo para la jugada, según {@link System#nanoTime()}, o {@link Long#MAX_VALUE} si no hay límite.
+     */
+    public long iniciarJugada() {
+        inicioJugada = System.nanoTime();
+        return tieneLimite() ? inicioJugada + limiteJugada : Long.MAX_VALUE;
+    }
+
+    /**
+     * Para el reloj al terminar una jugada, sumando su duración al tiempo usado.
+     */
+    public void terminarJugada() {
+        tiempoUsado += System.nanoTime() - inicioJugada;
+        ++jugadas;
+    }
+
+    /**
+     * Devuelve el tiempo usado en las jugadas terminadas.
+     * @return El tiempo usado, en milisegundos.
+     */
+    public long getTiempoUsado() {
+        return tiempoUsado / 1000000;
+    }
+
+    /**
+     * Devuelve el número de jugadas terminadas.
+     * @return El número de jugadas.
+     */
+    public int getJugadas() {
+        return jugadas;
+    }
+}
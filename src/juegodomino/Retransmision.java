@@ -0,0 +1,111 @@
+package juegodomino;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Retransmisión de una mesa a un fichero, para seguir la partida desde fuera del juego. Un hilo aparte saca periódicamente
+ * las tramas nuevas del {@link FlujoMesa} de la mesa y las añade al fichero, cada una precedida de su longitud
+ * (un {@code short}), así que la partida no espera a que se escriban. {@link EstadoEspectador#main(String[])} reproduce
+ * el fichero.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class Retransmision implements Espectador, Closeable {
+    /**
+     * Tiempo entre dos comprobaciones de tramas nuevas, en milisegundos.
+     */
+    private static final long PAUSA = 50;
+
+    private final FlujoMesa.Suscripcion suscripcion;
+    private final DataOutputStream salida;
+    private final Thread hilo;
+    private volatile boolean terminar;
+    private volatile IOException error;
+
+    /**
+     * Empieza a retransmitir una mesa a un fichero, vaciándolo si ya existía.
+     * @param m La mesa a retransmitir.
+     * @param fichero El fichero donde se escriben las tramas.
+     * @throws IOException Si no se puede crear el fichero.
+     */
+    public Retransmision(Mesa m, File fichero) throws IOException {
+        this.suscripcion = m.getFlujo().suscribir();
+        this.salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fichero)));
+        this.hilo = new Thread(this::retransmitir, "Retransmision " + fichero.getName());
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @Override
+    public void recibir(ByteBuffer trama) {
+        byte[] bytes = new byte[trama.remaining()];
+        trama.get(bytes);
+
+        try {
+            salida.writeShort(bytes.length);
+            salida.write(bytes);
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+    }
+
+    /**
+     * Escribe las tramas que queden por escribir y cierra el fichero.
+     * @throws IOException Si no se pudo escribir alguna trama en el fichero.
+     */
+    @Override
+    public void close() throws IOException {
+        terminar = true;
+        hilo.interrupt();
+        try {
+            hilo.join();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if (error == null) {
+                suscripcion.entregarA(this);
+            }
+        } catch (UncheckedIOException exc) {
+            error = exc.getCause();
+        } finally {
+            salida.close();
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Bucle del hilo de la retransmisión: escribe las tramas nuevas en el fichero hasta que se cierra o falla la escritura.
+     */
+    private void retransmitir() {
+        try {
+            while (!terminar) {
+                if (suscripcion.entregarA(this) > 0) {
+                    salida.flush();
+                }
+                try {
+                    Thread.sleep(PAUSA);
+                } catch (InterruptedException exc) {
+                    terminar = true;
+                }
+            }
+        } catch (UncheckedIOException exc) {
+            error = exc.getCause();
+        } catch (IOException exc) {
+            error = exc;
+        }
+    }
+}
@@ -0,0 +1,658 @@
+package juegodomino;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Simulación de partidas entre jugadores automáticos, sin interacción con el usuario, repartida entre varios procesos.
+ * <p>
+ * Cada partida se identifica por la semilla con la que se baraja su montón, así que un rango de semillas siempre produce
+ * los mismos resultados. El coordinador divide el rango en fragmentos y lanza un proceso trabajador por fragmento, que escribe
+ * sus resultados en un fichero parcial. Cuando terminan, el coordinador los junta en un informe. Los fragmentos cuyo fichero
+ * parcial ya está completo no se vuelven a simular, así que se puede relanzar una simulación interrumpida.
+ * <p>
+ * Uso:
+ * <pre>
+ * java -cp JavaDominoes.jar juegodomino.Simulador &lt;semilla inicial&gt; &lt;partidas&gt; &lt;procesos&gt; &lt;directorio&gt; [jugadores]
+ * java -cp JavaDominoes.jar juegodomino.Simulador --trabajador &lt;semilla inicial&gt; &lt;partidas&gt; &lt;jugadores&gt; &lt;fichero&gt;
+ * JavaDominoesSimulador &lt;semilla inicial&gt; &lt;partidas&gt; &lt;procesos&gt; &lt;directorio&gt; [jugadores]
+ * </pre>
+ * El ejecutable nativo (objetivo {@code native-image-simulador}) lanza como trabajadores copias de sí mismo. Como no hay
+ * JVM, lo busca en {@code /proc/self/exe}; en sistemas sin él hay que indicar su ruta con la propiedad del sistema
+ * {@code juegodomino.ejecutable}.
+ * <p>
+ * Si la propiedad del sistema {@code juegodomino.clasificacion} indica un directorio, al terminar todos los fragmentos
+ * sus resultados se registran en la {@link Clasificacion} de ese directorio, con los jugadores identificados por su puesto.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class Simulador {
+    /**
+     * Argumento que indica que el proceso es un trabajador.
+     */
+    private static final String OPCION_TRABAJADOR = "--trabajador";
+    /**
+     * Número de jugadores por partida si no se indica otro.
+     */
+    private static final int JUGADORES_POR_DEFECTO = 4;
+    /**
+     * Veces que se vuelve a lanzar un fragmento que falló antes de darse por vencido.
+     */
+    private static final int MAX_REINTENTOS = 2;
+    /**
+     * Número mágico al principio y al final de un fichero parcial. Que esté al final indica que el fichero está completo.
+     */
+    private static final int MAGICO_PARCIAL = 0x444F4D50;  // "DOMP"
+    /**
+     * Tamaño en bytes de la cabecera de un fichero parcial (número mágico, semilla inicial, partidas y jugadores).
+     */
+    private static final int TAM_CABECERA = 4 + 8 + 4 + 1;
+    /**
+     * Tamaño en bytes del resultado de una partida en un fichero parcial (ganadores, forma de acabar y turnos).
+     */
+    private static final int TAM_RESULTADO = 1 + 1 + 2;
+    /**
+     * Tiempo máximo para cada jugada de los jugadores automáticos, en milisegundos.
+     */
+    private static final long PLAZO_JUGADA = 10;
+    private static final String FICHERO_INFORME = "informe.txt";
+    /**
+     * Propiedad del sistema con la ruta del ejecutable que se lanza para los trabajadores, en vez de la JVM actual.
+     */
+    private static final String PROPIEDAD_EJECUTABLE = "juegodomino.ejecutable";
+    /**
+     * Directorio de la clasificación donde se registran los resultados, tomado de la propiedad del sistema
+     * {@code juegodomino.clasificacion}. {@code null} si no se registran.
+     */
+    private static final String DIRECTORIO_CLASIFICACION = System.getProperty("juegodomino.clasificacion");
+    /**
+     * Número de resultados que se registran a la vez en la clasificación.
+     */
+    private static final int TAM_LOTE_CLASIFICACION = 10000;
+    /**
+     * Nombre del fichero que indica que los resultados de la simulación ya se registraron en la clasificación.
+     */
+    private static final String FICHERO_CLASIFICADO = "clasificado";
+    /**
+     * Nombre del fichero donde se juntan las posiciones de todos los fragmentos.
+     */
+    private static final String FICHERO_POSICIONES = "posiciones.dat";
+    /**
+     * Indica si se guardan las posiciones de cada turno para consultarlas con {@link IndicePosiciones}. Se activa con la
+     * propiedad del sistema {@code juegodomino.registrarPosiciones}.
+     */
+    private static final boolean REGISTRAR_POSICIONES = Boolean.getBoolean("juegodomino.registrarPosiciones");
+    /**
+     * Estrategia de los jugadores automáticos. No debe depender del tiempo, para que cada semilla dé siempre el mismo resultado.
+     */
+    private static final Estrategia ESTRATEGIA = new EstrategiaHeuristica();
+
+    /**
+     * Resultado de una partida simulada.
+     */
+    static final class Resultado {
+        private final int ganadores;
+        private final boolean domino;
+        private final int turnos;
+
+        Resultado(int ganadores, boolean domino, int turnos) {
+            this.ganadores = ganadores;
+            this.domino = domino;
+            this.turnos = turnos;
+        }
+
+        /**
+         * Obtiene los puestos de los jugadores que ganaron la partida.
+         * @return Una máscara con el bit {@code i} activado si el jugador del puesto {@code i} ganó.
+         */
+        int getGanadores() {
+            return ganadores;
+        }
+
+        /**
+         * Indica cómo acabó la partida.
+         * @return {@code true} si acabó en dominó, {@code false} si acabó por cierre.
+         */
+        boolean esDomino() {
+            return domino;
+        }
+
+        /**
+         * Obtiene el número de turnos que duró la partida.
+         * @return El número de turnos.
+         */
+        int getTurnos() {
+            return turnos;
+        }
+    }
+
+    /**
+     * Acumula los resultados de un conjunto de partidas para el informe.
+     */
+    private static final class Estadisticas {
+        private final int[] victorias;
+        private long partidas;
+        private long dominos;
+        private long turnos;
+
+        Estadisticas(int numJugadores) {
+            this.victorias = new int[numJugadores];
+        }
+
+        void añadir(Resultado r) {
+            ++partidas;
+            turnos += r.getTurnos();
+            if (r.esDomino()) {
+                ++dominos;
+            }
+            for (int i = 0; i < victorias.length; ++i) {
+                if ((r.getGanadores() & (1 << i)) != 0) {
+                    ++victorias[i];
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder toret = new StringBuilder();
+
+            toret.append("Partidas: ").append(partidas).append('\n');
+            toret.append(String.format("Acabadas en dominó: %d (%.2f %%)%n", dominos, porcentaje(dominos)));
+            toret.append(String.format("Acabadas por cierre: %d (%.2f %%)%n", partidas - dominos, porcentaje(partidas - dominos)));
+            toret.append(String.format("Turnos por partida: %.2f%n", partidas == 0 ? 0 : (double) turnos / partidas));
+            for (int i = 0; i < victorias.length; ++i) {
+                toret.append(String.format("Victorias del puesto %d: %d (%.2f %%)%n", i + 1, victorias[i], porcentaje(victorias[i])));
+            }
+
+            return toret.toString();
+        }
+
+        private double porcentaje(long n) {
+            return partidas == 0 ? 0 : 100.0 * n / partidas;
+        }
+    }
+
+    /**
+     * Fragmento del rango de semillas que simula un trabajador.
+     */
+    private static final class Fragmento {
+        private final int numero;
+        private final long semillaInicial;
+        private final int partidas;
+        private final File fichero;
+        private Process proceso;
+
+        Fragmento(int numero, long semillaInicial, int partidas, File fichero) {
+            this.numero = numero;
+            this.semillaInicial = semillaInicial;
+            this.partidas = partidas;
+            this.fichero = fichero;
+        }
+    }
+
+    private Simulador() {}
+
+    public static void main(String[] args) {
+        int codigoSalida;
+
+        try {
+            if (args.length == 5 && args[0].equals(OPCION_TRABAJADOR)) {
+                trabajar(Long.parseLong(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), new File(args[4]));
+                codigoSalida = 0;
+            } else if (args.length == 4 || args.length == 5) {
+                int numJugadores = args.length == 5 ? Integer.parseInt(args[4]) : JUGADORES_POR_DEFECTO;
+                codigoSalida = coordinar(Long.parseLong(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                        new File(args[3]), numJugadores) ? 0 : 1;
+            } else {
+                System.err.println("Uso: Simulador <semilla inicial> <partidas> <procesos> <directorio> [jugadores]");
+                codigoSalida = 2;
+            }
+        } catch (NumberFormatException exc) {
+            System.err.println("Los argumentos numéricos no son válidos: " + exc.getMessage());
+            codigoSalida = 2;
+        } catch (IllegalArgumentException | IOException exc) {
+            System.err.println("Error en la simulación: " + exc.getMessage());
+            codigoSalida = 1;
+        }
+
+        System.exit(codigoSalida);
+    }
+
+    /**
+     * Juega una partida completa entre jugadores automáticos, con las mismas reglas de turno y de victoria que {@link Juego}.
+     * @param semilla La semilla con la que se baraja el montón.
+     * @param numJugadores El número de jugadores, entre 2 y 4. El primero lleva la mano.
+     * @param registro Donde guardar las posiciones de cada turno, o {@code null} para no guardarlas.
+     * @return El resultado de la partida.
+     * @throws IOException Si no se pueden guardar las posiciones.
+     */
+    static Resultado jugarPartida(long semilla, int numJugadores, RegistroPosiciones registro) throws IOException {
+        String[] nombres = new String[numJugadores];
+        for (int i = 0; i < numJugadores; ++i) {
+            nombres[i] = nombreJugador(i);
+        }
+        Mesa mesa = new Mesa(nombres, semilla);
+        Jugador[] jugadores = mesa.getJugadores();
+
+        int i = 0;
+        int turnos = 0;
+        int fichasJugadas = 0;
+        Jugador j;
+        if (registro != null) {
+            registro.empezarPartida(semilla);
+        }
+        do {
+            j = jugadores[i];
+            ArrayList<Ficha> fichasJugables = j.obtenerFichasJugables();
+            if (registro != null) {
+                registro.añadirTurno(i, mesa, fichasJugadas);
+            }
+
+            Ficha f;
+            switch (Juego.obtenerJugada(mesa, fichasJugables)) {
+                case PONER:
+                    f = ESTRATEGIA.elegirFicha(j, mesa, fichasJugables, System.nanoTime() + PLAZO_JUGADA * 1000000);
+                    break;
+                case ROBAR:
+                    f = j.robarFicha();
+                    break;
+                default:
+                    f = null;
+                    break;
+            }
+            if (f != null && !Juego.ponerFicha(mesa, j, f).equals(Juego.Lados.NINGUNO)) {
+                fichasJugadas |= 1 << f.getIndice();
+            }
+
+            ++turnos;
+            if ((++i) > numJugadores - 1) {
+                i = 0;
+            }
+        } while (!Juego.esCierre(mesa) && !Juego.esDomino(j));
+
+        int ganadores = 0;
+        for (Jugador g : Juego.obtenerGanadores(mesa, j)) {
+            for (int k = 0; k < numJugadores; ++k) {
+                if (g == jugadores[k]) {
+                    ganadores |= 1 << k;
+                }
+            }
+        }
+        boolean domino = Juego.esDomino(j);
+
+        if (registro != null) {
+            registro.terminarPartida(ganadores);
+        }
+
+        return new Resultado(ganadores, domino, turnos);
+    }
+
+    /**
+     * Simula un fragmento de partidas y escribe sus resultados en un fichero parcial. El fichero se escribe primero con
+     * otro nombre y se renombra al terminar, así que nunca queda a medias con el nombre definitivo.
+     * Si se guardan las posiciones, se escriben en un fichero de posiciones que se renombra antes que el parcial.
+     * @param semillaInicial La semilla de la primera partida. Las siguientes usan semillas consecutivas.
+     * @param partidas El número de partidas a simular.
+     * @param numJugadores El número de jugadores por partida.
+     * @param fichero El fichero parcial a escribir.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    private static void trabajar(long semillaInicial, int partidas, int numJugadores, File fichero) throws IOException {
+        comprobarJugadores(numJugadores);
+        File temporal = new File(fichero.getPath() + ".tmp");
+        File posiciones = ficheroPosiciones(fichero);
+        File posicionesTemporal = new File(posiciones.getPath() + ".tmp");
+        long inicio = System.nanoTime();
+
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporal)));
+                RegistroPosiciones registro = REGISTRAR_POSICIONES ? new RegistroPosiciones(posicionesTemporal) : null) {
+            salida.writeInt(MAGICO_PARCIAL);
+            salida.writeLong(semillaInicial);
+            salida.writeInt(partidas);
+            salida.writeByte(numJugadores);
+
+            for (int p = 0; p < partidas; ++p) {
+                Resultado r = jugarPartida(semillaInicial + p, numJugadores, registro);
+                salida.writeByte(r.getGanadores());
+                salida.writeByte(r.esDomino() ? 1 : 0);
+                salida.writeShort(r.getTurnos());
+            }
+
+            salida.writeInt(MAGICO_PARCIAL);
+        }
+        if (REGISTRAR_POSICIONES) {
+            Files.move(posicionesTemporal.toPath(), posiciones.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temporal.toPath(), fichero.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.printf("%s: %d partidas en %d ms.%n", fichero.getName(), partidas, (System.nanoTime() - inicio) / 1000000);
+    }
+
+    /**
+     * Reparte un rango de semillas entre varios procesos trabajadores, espera a que acaben y junta sus resultados en un informe.
+     * @param semillaInicial La semilla de la primera partida.
+     * @param partidas El número total de partidas.
+     * @param numProcesos El número de procesos trabajadores.
+     * @param directorio El directorio donde se guardan los ficheros parciales y el informe.
+     * @param numJugadores El número de jugadores por partida.
+     * @return {@code true} si se simularon todos los fragmentos, {@code false} si alguno falló tras agotar los reintentos.
+     * @throws IOException Si no se puede crear el directorio o escribir el informe.
+     */
+    private static boolean coordinar(long semillaInicial, int partidas, int numProcesos, File directorio, int numJugadores)
+            throws IOException {
+        comprobarJugadores(numJugadores);
+        if (partidas < 1 || numProcesos < 1) {
+            throw new IllegalArgumentException("Debe de haber al menos una partida y un proceso.");
+        }
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException("No se pudo crear el directorio " + directorio + ".");
+        }
+
+        // Dividir el rango de semillas en fragmentos de tamaño parecido
+        List<Fragmento> fragmentos = new ArrayList<>(numProcesos);
+        int partidasPorFragmento = (partidas + numProcesos - 1) / numProcesos;
+        for (int k = 0; k * partidasPorFragmento < partidas; ++k) {
+            int inicio = k * partidasPorFragmento;
+            fragmentos.add(new Fragmento(k, semillaInicial + inicio, Math.min(partidasPorFragmento, partidas - inicio),
+                    new File(directorio, "parcial-" + k + ".dat")));
+        }
+
+        // Lanzar los fragmentos que falten, volviendo a lanzar los que fallen
+        List<Fragmento> pendientes = new ArrayList<>();
+        for (Fragmento f : fragmentos) {
+            if (leerParcial(f, numJugadores, null) && (!REGISTRAR_POSICIONES || ficheroPosiciones(f.fichero).isFile())) {
+                System.out.println("Fragmento " + f.numero + " ya completado.");
+            } else {
+                pendientes.add(f);
+            }
+        }
+
+        long inicio = System.nanoTime();
+        for (int intento = 0; intento <= MAX_REINTENTOS && !pendientes.isEmpty(); ++intento) {
+            for (Fragmento f : pendientes) {
+                f.proceso = lanzarTrabajador(f, numJugadores);
+            }
+
+            List<Fragmento> fallidos = new ArrayList<>();
+            for (Fragmento f : pendientes) {
+                int codigo;
+                try {
+                    codigo = f.proceso.waitFor();
+                } catch (InterruptedException exc) {
+                    f.proceso.destroy();
+                    Thread.currentThread().interrupt();
+                    codigo = -1;
+                }
+
+                if (codigo != 0 || !leerParcial(f, numJugadores, null)) {
+                    System.err.println("El fragmento " + f.numero + " falló (código " + codigo + ").");
+                    fallidos.add(f);
+                }
+            }
+            pendientes = fallidos;
+        }
+
+        // Juntar los resultados de todos los fragmentos completados
+        Estadisticas estadisticas = new Estadisticas(numJugadores);
+        for (Fragmento f : fragmentos) {
+            if (!pendientes.contains(f)) {
+                leerParcial(f, numJugadores, estadisticas::añadir);
+            }
+        }
+
+        StringBuilder informe = new StringBuilder();
+        informe.append(String.format("Semillas %d a %d, %d jugadores, %d fragmentos (%d ms)%n",
+                semillaInicial, semillaInicial + partidas - 1, numJugadores, fragmentos.size(), (System.nanoTime() - inicio) / 1000000));
+        if (!pendientes.isEmpty()) {
+            informe.append("INCOMPLETO: faltan ").append(pendientes.size()).append(" fragmentos por simular.\n");
+        }
+        informe.append(estadisticas);
+
+        if (REGISTRAR_POSICIONES && pendientes.isEmpty()) {
+            File posiciones = new File(directorio, FICHERO_POSICIONES);
+            juntarPosiciones(fragmentos, posiciones);
+            IndicePosiciones.indexar(posiciones);
+            informe.append("Posiciones guardadas en ").append(FICHERO_POSICIONES).append(", con su índice en ")
+                    .append(IndicePosiciones.ficheroIndice(posiciones).getName()).append('\n');
+        }
+
+        if (DIRECTORIO_CLASIFICACION != null && pendientes.isEmpty()) {
+            if (registrarClasificacion(fragmentos, numJugadores, directorio)) {
+                informe.append("Resultados registrados en la clasificación de ").append(DIRECTORIO_CLASIFICACION).append('\n');
+            } else {
+                informe.append("Los resultados ya estaban registrados en la clasificación de ").append(DIRECTORIO_CLASIFICACION).append('\n');
+            }
+        }
+
+        try (PrintWriter salida = new PrintWriter(new File(directorio, FICHERO_INFORME), StandardCharsets.UTF_8.name())) {
+            salida.print(informe);
+        }
+        System.out.print(informe);
+
+        return pendientes.isEmpty();
+    }
+
+    /**
+     * Lanza un proceso trabajador para un fragmento, con la misma JVM y ruta de clases que el proceso actual.
+     * Se le pasan también las opciones de la JVM actual que afectan al arranque y la memoria, como el archivo CDS,
+     * y las propiedades del sistema del juego. Si el proceso actual es un ejecutable nativo, o se indicó otro ejecutable
+     * con {@code juegodomino.ejecutable}, se lanza ese ejecutable solo con las propiedades del sistema del juego.
+     * @param f El fragmento a simular.
+     * @param numJugadores El número de jugadores por partida.
+     * @return El proceso lanzado.
+     * @throws IOException Si no se pudo lanzar el proceso, o no se sabe qué ejecutable lanzar.
+     */
+    private static Process lanzarTrabajador(Fragmento f, int numJugadores) throws IOException {
+        List<String> orden = new ArrayList<>();
+        String ejecutable = ejecutableTrabajador();
+
+        if (ejecutable != null) {
+            orden.add(ejecutable);
+            for (String propiedad : System.getProperties().stringPropertyNames()) {
+                if (propiedad.startsWith("juegodomino.")) {
+                    orden.add("-D" + propiedad + "=" + System.getProperty(propiedad));
+                }
+            }
+        } else {
+            orden.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+            for (String opcion : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (opcion.startsWith("-XX:SharedArchiveFile=") || opcion.startsWith("-Xm") || opcion.startsWith("-Djuegodomino.")) {
+                    orden.add(opcion);
+                }
+            }
+            orden.add("-cp");
+            orden.add(System.getProperty("java.class.path"));
+            orden.add(Simulador.class.getName());
+        }
+        orden.add(OPCION_TRABAJADOR);
+        orden.add(Long.toString(f.semillaInicial));
+        orden.add(Integer.toString(f.partidas));
+        orden.add(Integer.toString(numJugadores));
+        orden.add(f.fichero.getPath());
+
+        return new ProcessBuilder(orden).inheritIO().start();
+    }
+
+    /**
+     * Averigua qué ejecutable hay que lanzar para los trabajadores cuando no se lanza la JVM actual.
+     * @return La ruta indicada en {@code juegodomino.ejecutable}, la del propio ejecutable si el proceso es un ejecutable
+     * nativo, o {@code null} si hay que lanzar la JVM actual.
+     * @throws IOException Si el proceso es un ejecutable nativo y no se puede averiguar su ruta.
+     */
+    private static String ejecutableTrabajador() throws IOException {
+        String toret = System.getProperty(PROPIEDAD_EJECUTABLE);
+
+        // GraalVM da este valor a la propiedad cuando se ejecuta un ejecutable nativo, que no tiene java.home
+        if (toret == null && "runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode"))) {
+            File propio = new File("/proc/self/exe");
+            if (!propio.exists()) {
+                throw new IOException("No se sabe la ruta del ejecutable para lanzar los trabajadores. "
+                        + "Indícala con -D" + PROPIEDAD_EJECUTABLE + "=<ruta>.");
+            }
+            toret = propio.getCanonicalPath();
+        }
+
+        return toret;
+    }
+
+    /**
+     * Registra en la clasificación los resultados de todos los fragmentos, en el orden de las semillas, y deja una marca en
+     * el directorio de la simulación para no volver a registrarlos si se relanza. Si el proceso termina mientras los
+     * registra, al relanzarlo se registran otra vez desde el principio.
+     * @param fragmentos Los fragmentos, todos completados.
+     * @param numJugadores El número de jugadores por partida.
+     * @param directorio El directorio de la simulación.
+     * @return {@code true} si se registraron, {@code false} si ya estaban registrados.
+     * @throws IOException Si no se puede escribir la clasificación o la marca.
+     */
+    private static boolean registrarClasificacion(List<Fragmento> fragmentos, int numJugadores, File directorio) throws IOException {
+        File marca = new File(directorio, FICHERO_CLASIFICADO);
+        boolean toret = !marca.exists();
+
+        if (toret) {
+            try (Clasificacion c = new Clasificacion(new File(DIRECTORIO_CLASIFICACION))) {
+                List<Clasificacion.Resultado> lote = new ArrayList<>(TAM_LOTE_CLASIFICACION);
+                for (Fragmento f : fragmentos) {
+                    List<Resultado> resultados = new ArrayList<>(f.partidas);
+                    leerParcial(f, numJugadores, resultados::add);
+                    for (Resultado r : resultados) {
+                        lote.add(resultadoClasificacion(r, numJugadores));
+                        if (lote.size() == TAM_LOTE_CLASIFICACION) {
+                            c.registrar(lote);
+                            lote.clear();
+                        }
+                    }
+                }
+                c.registrar(lote);
+            }
+            if (!marca.createNewFile()) {
+                throw new IOException("No se pudo crear " + marca + ".");
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Convierte el resultado de una partida simulada en uno de la clasificación.
+     * @param r El resultado de la partida.
+     * @param numJugadores El número de jugadores de la partida.
+     * @return El resultado, con los jugadores nombrados como en {@link #jugarPartida(long, int, RegistroPosiciones)}.
+     */
+    private static Clasificacion.Resultado resultadoClasificacion(Resultado r, int numJugadores) {
+        List<String> ganadores = new ArrayList<>(numJugadores);
+        List<String> perdedores = new ArrayList<>(numJugadores);
+
+        for (int i = 0; i < numJugadores; ++i) {
+            if ((r.getGanadores() & (1 << i)) != 0) {
+                ganadores.add(nombreJugador(i));
+            } else {
+                perdedores.add(nombreJugador(i));
+            }
+        }
+
+        return new Clasificacion.Resultado(ganadores, perdedores);
+    }
+
+    /**
+     * Obtiene el nombre del jugador de un puesto en las partidas simuladas.
+     * @param puesto El puesto del jugador, empezando en 0 por el que lleva la mano.
+     * @return Su nombre.
+     */
+    private static String nombreJugador(int puesto) {
+        return "Jugador " + (puesto + 1);
+    }
+
+    /**
+     * Lee el fichero parcial de un fragmento, comprobando que está completo y corresponde al fragmento.
+     * @param f El fragmento.
+     * @param numJugadores El número de jugadores por partida esperado.
+     * @param destino A quién pasar los resultados leídos, o {@code null} para solo comprobar el fichero.
+     * @return {@code true} si el fichero existe, está completo y es del fragmento, {@code false} si no.
+     */
+    private static boolean leerParcial(Fragmento f, int numJugadores, Consumer<Resultado> destino) {
+        boolean toret = f.fichero.length() == TAM_CABECERA + (long) f.partidas * TAM_RESULTADO + 4;
+
+        if (toret) {
+            try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(new FileInputStream(f.fichero)))) {
+                toret = entrada.readInt() == MAGICO_PARCIAL
+                        && entrada.readLong() == f.semillaInicial
+                        && entrada.readInt() == f.partidas
+                        && entrada.readByte() == numJugadores;
+
+                for (int p = 0; toret && p < f.partidas; ++p) {
+                    int ganadores = entrada.readUnsignedByte();
+                    boolean domino = entrada.readByte() != 0;
+                    int turnos = entrada.readUnsignedShort();
+                    if (destino != null) {
+                        destino.accept(new Resultado(ganadores, domino, turnos));
+                    }
+                }
+
+                toret = toret && entrada.readInt() == MAGICO_PARCIAL;
+            } catch (IOException exc) {
+                toret = false;
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Junta los ficheros de posiciones de todos los fragmentos en uno solo, en el orden de los fragmentos.
+     * @param fragmentos Los fragmentos, todos completados.
+     * @param destino El fichero donde juntarlos.
+     * @throws IOException Si falta el fichero de posiciones de algún fragmento o no se puede escribir el destino.
+     */
+    private static void juntarPosiciones(List<Fragmento> fragmentos, File destino) throws IOException {
+        try (FileChannel salida = FileChannel.open(destino.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Fragmento f : fragmentos) {
+                try (FileChannel entrada = FileChannel.open(ficheroPosiciones(f.fichero).toPath(), StandardOpenOption.READ)) {
+                    long copiados = 0;
+                    while (copiados < entrada.size()) {
+                        copiados += entrada.transferTo(copiados, entrada.size() - copiados, salida);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el fichero de posiciones que corresponde a un fichero parcial.
+     * @param parcial El fichero parcial.
+     * @return El fichero de posiciones, en el mismo directorio y con extensión {@code .pos}.
+     */
+    private static File ficheroPosiciones(File parcial) {
+        return new File(parcial.getParentFile(), parcial.getName().replaceFirst("\\.dat$", "") + ".pos");
+    }
+
+    /**
+     * Comprueba que el número de jugadores por partida es válido.
+     * @param numJugadores El número de jugadores.
+     * @throws IllegalArgumentException Si no está entre 2 y 4.
+     */
+    private static void comprobarJugadores(int numJugadores) throws IllegalArgumentException {
+        if (numJugadores < 2 || numJugadores > 4) {
+            throw new IllegalArgumentException("El número de jugadores debe de estar entre 2 y 4.");
+        }
+    }
+}
@@ -9,7 +9,12 @@ if errorlevel 1 goto ERROR
 :: Ejecutar el juego
 color 70
 cd %~dp0
-java -jar "JavaDominoes.jar"
+:: Usar el archivo CDS de la aplicacin si se gener, para arrancar ms rpido
+if exist JavaDominoes.jsa (
+    java -XX:SharedArchiveFile=JavaDominoes.jsa -jar "JavaDominoes.jar"
+) else (
+    java -jar "JavaDominoes.jar"
+)
 timeout /T 7 /NOBREAK > nul
 exit
 
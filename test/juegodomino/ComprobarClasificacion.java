@@ -0,0 +1,309 @@
+package juegodomino;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Comprobaciones de {@link Clasificacion} con varios procesos escribiendo a la vez, procesos que terminan a mitad de un
+ * lote, registros cortados y tablas llenas. Los procesos que escriben son copias de esta misma clase.
+ * <p>
+ * Uso: {@code java -cp <clases> juegodomino.ComprobarClasificacion [directorio de trabajo]}. Sale con código 1 si alguna
+ * comprobación falla.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class ComprobarClasificacion {
+    private static final String OPCION_ESCRIBIR = "--escribir";
+    private static final int NUM_PROCESOS = 4;
+    private static final int RESULTADOS_POR_PROCESO = 300;
+    private static final int NUM_INTERRUPCIONES = 8;
+    private static final int MAX_RESULTADOS_POR_LOTE = 2000;
+    private static final int NUM_NOMBRES = 50;
+
+    private ComprobarClasificacion() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 4 && args[0].equals(OPCION_ESCRIBIR)) {
+            escribir(new File(args[1]), Long.parseLong(args[2]), Integer.parseInt(args[3]));
+        } else {
+            File directorio = args.length > 0 ? new File(args[0]) : Files.createTempDirectory("clasificacion").toFile();
+            boolean correcto = comprobarProcesosConcurrentes(new File(directorio, "concurrentes"))
+                    & comprobarInterrupciones(new File(directorio, "interrupciones"))
+                    & comprobarRegistroCortado(new File(directorio, "cortado"))
+                    & comprobarTablaLlena(new File(directorio, "llena"))
+                    & comprobarNombreLargo(new File(directorio, "nombre"));
+
+            System.out.println(correcto ? "Clasificación: todo correcto." : "Clasificación: hay fallos.");
+            System.exit(correcto ? 0 : 1);
+        }
+    }
+
+    /**
+     * Varios procesos registran resultados a la vez en la misma clasificación: no se debe perder ninguno, y reconstruir
+     * la tabla desde el registro debe dar las mismas puntuaciones.
+     */
+    private static boolean comprobarProcesosConcurrentes(File directorio) throws IOException, InterruptedException {
+        limpiar(directorio);
+        List<Process> procesos = new ArrayList<>();
+        for (int p = 0; p < NUM_PROCESOS; ++p) {
+            procesos.add(lanzarEscritor(directorio, p, RESULTADOS_POR_PROCESO));
+        }
+        boolean toret = true;
+        for (Process p : procesos) {
+            toret &= p.waitFor() == 0;
+        }
+
+        double[] puntuaciones = leerPuntuaciones(directorio);
+        long[] partidas = contarPartidas(directorio);
+        toret &= comprobar(partidas[0] == 2L * NUM_PROCESOS * RESULTADOS_POR_PROCESO && partidas[1] == (long) NUM_PROCESOS * RESULTADOS_POR_PROCESO,
+                "%d procesos concurrentes: %d partidas y %d victorias", NUM_PROCESOS, partidas[0], partidas[1]);
+        toret &= comprobar(Arrays.equals(puntuaciones, reconstruir(directorio)), "la tabla reconstruida desde el registro es igual");
+
+        return toret;
+    }
+
+    /**
+     * Se mata a procesos mientras registran lotes grandes. Al volver a abrir, la tabla debe quedar igual que si se
+     * reconstruye desde el registro: ningún resultado se aplica dos veces ni se queda sin aplicar.
+     */
+    private static boolean comprobarInterrupciones(File directorio) throws IOException, InterruptedException {
+        limpiar(directorio);
+        Random aleatorio = new Random(1);
+        boolean toret = true;
+
+        for (int i = 0; i < NUM_INTERRUPCIONES; ++i) {
+            long registroAntes = new File(directorio, Clasificacion.FICHERO_REGISTRO).length();
+            Process p = lanzarEscritor(directorio, 1000 + i, 0);
+            Thread.sleep(300 + aleatorio.nextInt(700));
+            p.destroyForcibly().waitFor();
+            long registroDespues = new File(directorio, Clasificacion.FICHERO_REGISTRO).length();
+
+            double[] puntuaciones = leerPuntuaciones(directorio);
+            long[] partidas = contarPartidas(directorio);
+            long resultados = contarResultados(directorio);
+            toret &= comprobar(partidas[0] == 2 * resultados && partidas[1] == resultados
+                    && Arrays.equals(puntuaciones, reconstruir(directorio)),
+                    "interrupción %d (registro de %d a %d bytes): %d resultados, %d partidas y tabla igual a la reconstruida",
+                    i + 1, registroAntes, registroDespues, resultados, partidas[0]);
+        }
+
+        return toret;
+    }
+
+    /**
+     * Un resultado a medio escribir al final del registro se descarta al abrir, sin cambiar las puntuaciones.
+     */
+    private static boolean comprobarRegistroCortado(File directorio) throws IOException, InterruptedException {
+        limpiar(directorio);
+        boolean toret = lanzarEscritor(directorio, 7, 10).waitFor() == 0;
+        File registro = new File(directorio, Clasificacion.FICHERO_REGISTRO);
+        long longitud = registro.length();
+        double[] antes = leerPuntuaciones(directorio);
+
+        try (RandomAccessFile f = new RandomAccessFile(registro, "rw")) {
+            f.seek(longitud);
+            f.writeLong(System.currentTimeMillis());
+            f.writeByte(1);
+            f.writeShort(20);
+            f.write(new byte[3]);
+        }
+
+        double[] despues = leerPuntuaciones(directorio);
+        toret &= comprobar(registro.length() == longitud && Arrays.equals(antes, despues),
+                "el resultado cortado al final del registro se descarta");
+
+        return toret;
+    }
+
+    /**
+     * Un lote con jugadores que no caben en la tabla se rechaza sin llegar al registro, y la clasificación se sigue
+     * pudiendo abrir. Una tabla reconstruida que no tiene sitio para los jugadores del registro se vuelve a crear al
+     * abrirla con más capacidad.
+     */
+    private static boolean comprobarTablaLlena(File directorio) throws IOException {
+        limpiar(directorio);
+        boolean toret;
+        File registro = new File(directorio, Clasificacion.FICHERO_REGISTRO);
+
+        try (Clasificacion c = new Clasificacion(directorio, 4)) {
+            c.registrar(resultado("a", "b"));
+            c.registrar(resultado("c", "d"));
+            long longitud = registro.length();
+            boolean rechazado = false;
+            try {
+                c.registrar(Arrays.asList(resultado("a", "c"), resultado("e", "a")));
+            } catch (IllegalStateException exc) {
+                rechazado = true;
+            }
+            toret = comprobar(rechazado && registro.length() == longitud && c.getPartidas("a") == 1,
+                    "el lote con un jugador que no cabe se rechaza sin escribirse en el registro");
+        }
+
+        try (Clasificacion c = new Clasificacion(directorio, 4)) {
+            toret &= comprobar(c.getPartidas("d") == 1, "la tabla llena se sigue pudiendo abrir");
+        }
+
+        new File(directorio, Clasificacion.FICHERO_TABLA).delete();
+        boolean demasiadoPequeña = false;
+        try (Clasificacion c = new Clasificacion(directorio, 2)) {
+            c.getPartidas("a");
+        } catch (IOException exc) {
+            demasiadoPequeña = true;
+        }
+        try (Clasificacion c = new Clasificacion(directorio, 8)) {
+            toret &= comprobar(demasiadoPequeña && c.getPartidas("a") == 1 && c.getPartidas("d") == 1,
+                    "la tabla que no se pudo reconstruir por falta de sitio se reconstruye con más capacidad");
+        }
+
+        return toret;
+    }
+
+    /**
+     * Los nombres que no caben enteros en la tabla se rechazan sin llegar al registro.
+     */
+    private static boolean comprobarNombreLargo(File directorio) throws IOException {
+        limpiar(directorio);
+        boolean rechazado = false;
+        char[] largo = new char[Clasificacion.MAX_BYTES_NOMBRE + 1];
+        Arrays.fill(largo, 'x');
+
+        try (Clasificacion c = new Clasificacion(directorio)) {
+            c.registrar(resultado(new String(largo), "b"));
+        } catch (IllegalArgumentException exc) {
+            rechazado = true;
+        }
+
+        return comprobar(rechazado && new File(directorio, Clasificacion.FICHERO_REGISTRO).length() == 0,
+                "el nombre de %d bytes se rechaza", largo.length);
+    }
+
+    /**
+     * Registra resultados aleatorios entre los nombres de prueba, en lotes de tamaño aleatorio.
+     * @param directorio El directorio de la clasificación.
+     * @param semilla La semilla de los resultados.
+     * @param numResultados El número de resultados a registrar, o {@code 0} para registrar hasta que se mate al proceso.
+     * @throws IOException Si no se puede escribir la clasificación.
+     */
+    private static void escribir(File directorio, long semilla, int numResultados) throws IOException {
+        Random aleatorio = new Random(semilla);
+
+        try (Clasificacion c = new Clasificacion(directorio)) {
+            int registrados = 0;
+            while (numResultados == 0 || registrados < numResultados) {
+                int tamLote = 1 + aleatorio.nextInt(MAX_RESULTADOS_POR_LOTE);
+                if (numResultados > 0) {
+                    tamLote = Math.min(numResultados - registrados, tamLote);
+                }
+                List<Clasificacion.Resultado> lote = new ArrayList<>(tamLote);
+                for (int k = 0; k < tamLote; ++k) {
+                    int ganador = aleatorio.nextInt(NUM_NOMBRES);
+                    int perdedor = (ganador + 1 + aleatorio.nextInt(NUM_NOMBRES - 1)) % NUM_NOMBRES;
+                    lote.add(resultado(nombre(ganador), nombre(perdedor)));
+                }
+                c.registrar(lote);
+                registrados += tamLote;
+            }
+        }
+    }
+
+    private static Process lanzarEscritor(File directorio, long semilla, int numResultados) throws IOException {
+        return new ProcessBuilder(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath(),
+                "-cp", System.getProperty("java.class.path"), ComprobarClasificacion.class.getName(),
+                OPCION_ESCRIBIR, directorio.getPath(), Long.toString(semilla), Integer.toString(numResultados))
+                .inheritIO().start();
+    }
+
+    /**
+     * Reconstruye la tabla en otro directorio a partir de una copia del registro.
+     * @return Las puntuaciones de la tabla reconstruida.
+     */
+    private static double[] reconstruir(File directorio) throws IOException {
+        File copia = new File(directorio, "reconstruida");
+        limpiar(copia);
+        Files.copy(new File(directorio, Clasificacion.FICHERO_REGISTRO).toPath(),
+                new File(copia, Clasificacion.FICHERO_REGISTRO).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return leerPuntuaciones(copia);
+    }
+
+    private static double[] leerPuntuaciones(File directorio) throws IOException {
+        double[] toret = new double[NUM_NOMBRES];
+
+        try (Clasificacion c = new Clasificacion(directorio)) {
+            for (int i = 0; i < NUM_NOMBRES; ++i) {
+                toret[i] = c.getPuntuacion(nombre(i));
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Suma las partidas y las victorias de todos los nombres de prueba.
+     * @return Las partidas y las victorias.
+     */
+    private static long[] contarPartidas(File directorio) throws IOException {
+        long[] toret = new long[2];
+
+        try (Clasificacion c = new Clasificacion(directorio)) {
+            for (int i = 0; i < NUM_NOMBRES; ++i) {
+                toret[0] += c.getPartidas(nombre(i));
+                toret[1] += c.getVictorias(nombre(i));
+            }
+        }
+
+        return toret;
+    }
+
+    /**
+     * Cuenta los resultados completos del registro, que tiene solo resultados de un ganador y un perdedor.
+     */
+    private static long contarResultados(File directorio) throws IOException {
+        long toret = 0;
+
+        try (RandomAccessFile registro = new RandomAccessFile(new File(directorio, Clasificacion.FICHERO_REGISTRO), "r")) {
+            while (registro.getFilePointer() < registro.length()) {
+                registro.readLong();
+                for (int lista = 0; lista < 2; ++lista) {
+                    int numNombres = registro.readUnsignedByte();
+                    for (int k = 0; k < numNombres; ++k) {
+                        registro.readUTF();
+                    }
+                }
+                ++toret;
+            }
+        }
+
+        return toret;
+    }
+
+    private static Clasificacion.Resultado resultado(String ganador, String perdedor) {
+        return new Clasificacion.Resultado(Collections.singletonList(ganador), Collections.singletonList(perdedor));
+    }
+
+    private static String nombre(int i) {
+        return "Jugador de prueba " + i;
+    }
+
+    private static void limpiar(File directorio) throws IOException {
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException("No se pudo crear " + directorio);
+        }
+        new File(directorio, Clasificacion.FICHERO_TABLA).delete();
+        new File(directorio, Clasificacion.FICHERO_REGISTRO).delete();
+    }
+
+    private static boolean comprobar(boolean condicion, String formato, Object... args) {
+        System.out.println((condicion ? "OK    " : "FALLO ") + String.format(formato, args));
+        return condicion;
+    }
+}
@@ -0,0 +1,189 @@
+package juegodomino;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Comprobaciones de {@link FlujoMesa} con {@link EstadoEspectador}: en partidas entre jugadores automáticos, los
+ * espectadores que se suscriben desde el principio, los que llegan a mitad de partida y los que se quedan atrás deben
+ * acabar viendo lo mismo que hay en la mesa.
+ * <p>
+ * Uso: {@code java -cp <clases> juegodomino.ComprobarFlujo}. Sale con código 1 si alguna comprobación falla.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class ComprobarFlujo {
+    private static final int NUM_PARTIDAS = 3000;
+    private static final int PASES_REZAGADO = 200;
+    private static final Estrategia ESTRATEGIA = new EstrategiaHeuristica();
+
+    private ComprobarFlujo() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        Random aleatorio = new Random(3);
+        int fallosTemprano = 0;
+        int fallosTardio = 0;
+        int fallosRezagado = 0;
+        int fallosHilo = 0;
+        int jugadas = 0;
+
+        for (int p = 0; p < NUM_PARTIDAS; ++p) {
+            Mesa m = new Mesa(nombres(2 + p % 3), p);
+            FlujoMesa flujo = m.getFlujo();
+            EstadoEspectador temprano = new EstadoEspectador();
+            FlujoMesa.Suscripcion suscripcionTemprano = flujo.suscribir();
+            EstadoEspectador tardio = new EstadoEspectador();
+            FlujoMesa.Suscripcion suscripcionTardio = null;
+            int jugadaTardio = aleatorio.nextInt(30);
+            EstadoEspectador rezagado = new EstadoEspectador();
+            FlujoMesa.Suscripcion suscripcionRezagado = flujo.suscribir();
+            int intervaloRezagado = 1 + aleatorio.nextInt(20);
+
+            // Un espectador en otro hilo, que saca tramas mientras la partida las publica
+            EstadoEspectador enHilo = new EstadoEspectador();
+            FlujoMesa.Suscripcion suscripcionHilo = flujo.suscribir();
+            AtomicBoolean terminada = new AtomicBoolean();
+            Thread hilo = new Thread(() -> {
+                while (!terminada.get()) {
+                    suscripcionHilo.entregarA(enHilo);
+                }
+            });
+            hilo.start();
+
+            flujo.publicarClave(0);
+            int i = 0;
+            int numero = 0;
+            Jugador j;
+            do {
+                j = m.getJugadores()[i];
+                jugar(m, i);
+                ++numero;
+                ++jugadas;
+                i = (i + 1) % m.getJugadores().length;
+
+                suscripcionTemprano.entregarA(temprano);
+                fallosTemprano += coincide(temprano, m, numero, i) ? 0 : 1;
+
+                if (suscripcionTardio == null && numero >= jugadaTardio) {
+                    suscripcionTardio = flujo.suscribir();
+                }
+                if (suscripcionTardio != null) {
+                    suscripcionTardio.entregarA(tardio);
+                    fallosTardio += coincide(tardio, m, numero, i) ? 0 : 1;
+                }
+
+                if (numero % intervaloRezagado == 0) {
+                    suscripcionRezagado.entregarA(rezagado);
+                    fallosRezagado += coincide(rezagado, m, numero, i) ? 0 : 1;
+                }
+            } while (!Juego.esCierre(m) && !Juego.esDomino(j));
+
+            terminada.set(true);
+            hilo.join();
+            suscripcionHilo.entregarA(enHilo);
+            fallosHilo += coincide(enHilo, m, numero, i) ? 0 : 1;
+            suscripcionRezagado.entregarA(rezagado);
+            fallosRezagado += coincide(rezagado, m, numero, i) ? 0 : 1;
+            if (suscripcionTardio != null) {
+                suscripcionTardio.entregarA(tardio);
+                fallosTardio += coincide(tardio, m, numero, i) ? 0 : 1;
+            }
+        }
+
+        boolean correcto = comprobar(fallosTemprano == 0, "%d partidas, %d jugadas: %d fallos del espectador que saca cada jugada",
+                NUM_PARTIDAS, jugadas, fallosTemprano);
+        correcto &= comprobar(fallosTardio == 0, "%d fallos del espectador que llega a mitad de partida", fallosTardio);
+        correcto &= comprobar(fallosRezagado == 0, "%d fallos del espectador que saca las jugadas cada varios turnos", fallosRezagado);
+        correcto &= comprobar(fallosHilo == 0, "%d fallos del espectador que saca las jugadas desde otro hilo", fallosHilo);
+        correcto &= comprobarRezagadoSinAnillo();
+
+        System.out.println(correcto ? "Flujo de la mesa: todo correcto." : "Flujo de la mesa: hay fallos.");
+        System.exit(correcto ? 0 : 1);
+    }
+
+    /**
+     * Un espectador que se queda más tramas atrás de las que caben en el anillo salta a la última trama clave y
+     * sigue viendo lo mismo que hay en la mesa.
+     */
+    private static boolean comprobarRezagadoSinAnillo() {
+        Mesa m = new Mesa(nombres(3), 1);
+        FlujoMesa flujo = m.getFlujo();
+        EstadoEspectador rezagado = new EstadoEspectador();
+        FlujoMesa.Suscripcion suscripcion = flujo.suscribir();
+
+        flujo.publicarClave(0);
+        for (int i = 0; i < 4; ++i) {
+            jugar(m, i % 3);
+        }
+        suscripcion.entregarA(rezagado);
+        boolean toret = coincide(rezagado, m, 4, 4 % 3);
+
+        // Muchos pases seguidos sin que el espectador saque ninguna trama
+        for (int n = 4; n < 4 + PASES_REZAGADO; ++n) {
+            flujo.publicarJugada(n % 3, null, Juego.Lados.NINGUNO, 0);
+        }
+        int entregadas = suscripcion.entregarA(rezagado);
+        int publicadas = PASES_REZAGADO + PASES_REZAGADO / 16;
+        toret &= coincide(rezagado, m, 4 + PASES_REZAGADO, (4 + PASES_REZAGADO) % 3);
+
+        return comprobar(toret && entregadas < publicadas,
+                "el espectador que se queda %d tramas atrás salta a la última clave (recibe %d) y coincide con la mesa",
+                publicadas, entregadas);
+    }
+
+    /**
+     * Hace la jugada que le toca a un jugador, con las mismas reglas que {@link Juego}, y la publica en el flujo de la mesa.
+     */
+    private static void jugar(Mesa m, int puesto) {
+        Jugador j = m.getJugadores()[puesto];
+        List<Ficha> fichasJugables = j.obtenerFichasJugables();
+        Juego.Jugadas jugada = Juego.obtenerJugada(m, fichasJugables);
+        Ficha f = null;
+        Juego.Lados lado = Juego.Lados.NINGUNO;
+
+        if (jugada == Juego.Jugadas.PONER) {
+            f = ESTRATEGIA.elegirFicha(j, m, fichasJugables, Long.MAX_VALUE);
+        } else if (jugada == Juego.Jugadas.ROBAR) {
+            f = j.robarFicha();
+        }
+        if (f != null) {
+            lado = Juego.ponerFicha(m, j, f);
+        }
+        m.getFlujo().publicarJugada(puesto, lado.equals(Juego.Lados.NINGUNO) ? null : f, lado,
+                jugada == Juego.Jugadas.ROBAR ? 1 : 0);
+    }
+
+    /**
+     * Comprueba que un espectador ve lo mismo que hay en la mesa, comparando su representación textual con la que
+     * tendría que tener.
+     */
+    private static boolean coincide(EstadoEspectador e, Mesa m, int numero, int siguientePuesto) {
+        StringBuilder esperado = new StringBuilder("[");
+        for (int k = 0; k < m.getNumFichasTablero(); ++k) {
+            esperado.append(k == 0 ? "" : ", ").append(m.getFicha(k));
+        }
+        esperado.append("]\nFichas en montón: ").append(m.getMonton().getNumFichas());
+        for (int p = 0; p < m.getJugadores().length; ++p) {
+            esperado.append("\nJugador ").append(p + 1).append(": ").append(m.getJugadores()[p].getNumFichasMano()).append(" ficha(s)");
+        }
+
+        return e.estaSincronizado() && e.getNumero() == numero && e.getSiguientePuesto() == siguientePuesto
+                && e.toString().equals(esperado.toString());
+    }
+
+    private static String[] nombres(int numJugadores) {
+        String[] toret = new String[numJugadores];
+        for (int p = 0; p < numJugadores; ++p) {
+            toret[p] = "Jugador " + (p + 1);
+        }
+        return toret;
+    }
+
+    private static boolean comprobar(boolean condicion, String formato, Object... args) {
+        System.out.println((condicion ? "OK    " : "FALLO ") + String.format(formato, args));
+        return condicion;
+    }
+}
@@ -0,0 +1,210 @@
+package juegodomino;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Comprobaciones de {@link IndicePosiciones}: las consultas aleatorias sobre un fichero de posiciones de partidas simuladas
+ * deben dar las mismas posiciones, y en el mismo orden, que recorrer el fichero entero comprobando cada una.
+ * <p>
+ * Uso: {@code java -cp <clases> juegodomino.ComprobarIndice [directorio de trabajo]}. Sale con código 1 si alguna
+ * comprobación falla.
+ * @author Rubén Vilas Martinez
+ * @author Irene Fernández Mariño
+ * @author Alejandro Gonzalez García
+ * @author Daniel Gómez Rodríguez
+ */
+public final class ComprobarIndice {
+    private static final int PARTIDAS_POR_NUM_JUGADORES = 2000;
+    private static final int NUM_CONSULTAS = 400;
+
+    private ComprobarIndice() {}
+
+    public static void main(String[] args) throws IOException {
+        File directorio = args.length > 0 ? new File(args[0]) : Files.createTempDirectory("indice").toFile();
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException("No se pudo crear " + directorio);
+        }
+        File fichero = new File(directorio, "posiciones.dat");
+        escribirPosiciones(fichero);
+
+        ByteBuffer posiciones = ByteBuffer.wrap(Files.readAllBytes(fichero.toPath()));
+        boolean correcto = comprobarConsultas(fichero, posiciones, "índice nuevo");
+        correcto &= comprobarConsultas(fichero, posiciones, "índice ya guardado");
+
+        System.out.println(correcto ? "Índice de posiciones: todo correcto." : "Índice de posiciones: hay fallos.");
+        System.exit(correcto ? 0 : 1);
+    }
+
+    /**
+     * Escribe las posiciones de partidas de 2, 3 y 4 jugadores en un fichero nuevo, borrando el índice que hubiera.
+     */
+    private static void escribirPosiciones(File fichero) throws IOException {
+        IndicePosiciones.ficheroIndice(fichero).delete();
+        try (RegistroPosiciones registro = new RegistroPosiciones(fichero)) {
+            long semilla = 0;
+            for (int numJugadores = 2; numJugadores <= 4; ++numJugadores) {
+                for (int p = 0; p < PARTIDAS_POR_NUM_JUGADORES; ++p) {
+                    Simulador.jugarPartida(semilla++, numJugadores, registro);
+                }
+            }
+        }
+    }
+
+    /**
+     * Abre el índice y compara el resultado de consultas aleatorias con el de recorrer todas las posiciones.
+     * @param fichero El fichero de posiciones.
+     * @param posiciones El contenido del fichero.
+     * @param descripcion Qué se está comprobando, para los mensajes.
+     */
+    private static boolean comprobarConsultas(File fichero, ByteBuffer posiciones, String descripcion) throws IOException {
+        Random aleatorio = new Random(5);
+        int numPosiciones = posiciones.capacity() / RegistroPosiciones.TAM_POSICION;
+        int fallos = 0;
+        long encontradas = 0;
+
+        try (IndicePosiciones indice = new IndicePosiciones(fichero)) {
+            boolean toret = comprobar(indice.getNumPosiciones() == numPosiciones, "%s: %d posiciones", descripcion, numPosiciones);
+
+            for (int q = 0; q < NUM_CONSULTAS; ++q) {
+                ConsultaAleatoria c = new ConsultaAleatoria(aleatorio);
+                List<Long> esperadas = new ArrayList<>();
+                for (int n = 0; n < numPosiciones; ++n) {
+                    if (c.cumple(posiciones, n * RegistroPosiciones.TAM_POSICION)) {
+                        esperadas.add(posiciones.getLong(n * RegistroPosiciones.TAM_POSICION) << 8
+                                | posiciones.get(n * RegistroPosiciones.TAM_POSICION + 16) & 0xFF);
+                    }
+                }
+
+                List<Long> obtenidas = new ArrayList<>();
+                for (IndicePosiciones.Posicion p : indice.buscar(c.consulta, Integer.MAX_VALUE)) {
+                    obtenidas.add(p.getPartida() << 8 | p.getTurno());
+                }
+                long contadas = indice.contar(c.consulta);
+
+                if (contadas != esperadas.size() || !obtenidas.equals(esperadas)) {
+                    ++fallos;
+                    System.out.println("FALLO " + c + ": se esperaban " + esperadas.size() + " posiciones, se contaron "
+                            + contadas + " y se encontraron " + obtenidas.size());
+                }
+                encontradas += esperadas.size();
+            }
+
+            return toret & comprobar(fallos == 0, "%s: %d consultas aleatorias, %d posiciones encontradas, %d fallos",
+                    descripcion, NUM_CONSULTAS, encontradas, fallos);
+        }
+    }
+
+    /**
+     * Consulta con condiciones aleatorias, que se puede comprobar directamente sobre cada posición del fichero.
+     */
+    private static final class ConsultaAleatoria {
+        private final IndicePosiciones.Consulta consulta = new IndicePosiciones.Consulta();
+        private final StringBuilder descripcion = new StringBuilder("consulta");
+        private int extremoA = -1;
+        private int extremoB = -1;
+        private int turnoMinimo = 0;
+        private int turnoMaximo = Integer.MAX_VALUE;
+        private int monton = -1;
+        private int puesto = -1;
+        private int ganador = -1;
+        private int fichasJugadas;
+        private int fichasEnMano;
+
+        ConsultaAleatoria(Random aleatorio) {
+            if (aleatorio.nextBoolean()) {
+                // Incluye el tablero vacío, con los dos extremos a Mesa.SIN_EXTREMO
+                int a = aleatorio.nextInt(Mesa.SIN_EXTREMO + 1);
+                int b = aleatorio.nextInt(4) == 0 ? a : aleatorio.nextInt(Ficha.NUM_VALORES);
+                consulta.conExtremos(a, b);
+                extremoA = Math.min(a, b);
+                extremoB = Math.max(a, b);
+                descripcion.append(" extremos=").append(a).append("-").append(b);
+            }
+            if (aleatorio.nextBoolean()) {
+                // Un solo turno, un rango corto, uno largo o uno sin máximo
+                turnoMinimo = aleatorio.nextInt(30);
+                switch (aleatorio.nextInt(4)) {
+                    case 0:
+                        turnoMaximo = turnoMinimo;
+                        break;
+                    case 1:
+                        turnoMaximo = turnoMinimo + aleatorio.nextInt(3);
+                        break;
+                    case 2:
+                        turnoMaximo = turnoMinimo + aleatorio.nextInt(30);
+                        break;
+                    default:
+                        turnoMaximo = Integer.MAX_VALUE;
+                        break;
+                }
+                consulta.conTurnos(turnoMinimo, turnoMaximo);
+                descripcion.append(" turnos=").append(turnoMinimo).append("-").append(turnoMaximo);
+            }
+            if (aleatorio.nextInt(4) == 0) {
+                monton = aleatorio.nextInt(3);
+                consulta.conMonton(monton);
+                descripcion.append(" monton=").append(monton);
+            }
+            if (aleatorio.nextBoolean()) {
+                puesto = aleatorio.nextInt(4);
+                consulta.conPuesto(puesto);
+                descripcion.append(" puesto=").append(puesto);
+            }
+            if (aleatorio.nextBoolean()) {
+                ganador = aleatorio.nextInt(4);
+                consulta.conGanador(ganador);
+                descripcion.append(" ganador=").append(ganador);
+            }
+            if (aleatorio.nextInt(3) == 0) {
+                fichasJugadas = 1 << aleatorio.nextInt(Ficha.NUM_FICHAS);
+                consulta.conFichasJugadas(fichasJugadas);
+                descripcion.append(" jugadas=").append(Integer.toHexString(fichasJugadas));
+            }
+            if (aleatorio.nextInt(3) == 0) {
+                fichasEnMano = 1 << aleatorio.nextInt(Ficha.NUM_FICHAS) | 1 << aleatorio.nextInt(Ficha.NUM_FICHAS);
+                consulta.conFichasEnMano(fichasEnMano);
+                descripcion.append(" mano=").append(Integer.toHexString(fichasEnMano));
+            }
+        }
+
+        /**
+         * Comprueba la consulta sobre una posición, leyéndola con el formato de {@link RegistroPosiciones}.
+         * @param posiciones El contenido del fichero de posiciones.
+         * @param o El byte donde empieza la posición.
+         */
+        boolean cumple(ByteBuffer posiciones, int o) {
+            int jugadas = posiciones.getInt(o + 8);
+            int mano = posiciones.getInt(o + 12);
+            int turno = posiciones.get(o + 16) & 0xFF;
+            int puestoTurno = posiciones.get(o + 17);
+            int izq = posiciones.get(o + 18);
+            int der = posiciones.get(o + 19);
+            int montonPosicion = posiciones.get(o + 20) & 0xFF;
+            int ganadores = posiciones.get(o + 21) & 0xFF;
+
+            return (extremoA < 0 || (Math.min(izq, der) == extremoA && Math.max(izq, der) == extremoB))
+                    && turno >= turnoMinimo && turno <= turnoMaximo
+                    && (monton < 0 || montonPosicion == monton)
+                    && (puesto < 0 || puestoTurno == puesto)
+                    && (ganador < 0 || (ganadores & 1 << ganador) != 0)
+                    && (jugadas & fichasJugadas) == fichasJugadas
+                    && (mano & fichasEnMano) == fichasEnMano;
+        }
+
+        @Override
+        public String toString() {
+            return descripcion.toString();
+        }
+    }
+
+    private static boolean comprobar(boolean condicion, String formato, Object... args) {
+        System.out.println((condicion ? "OK    " : "FALLO ") + String.format(formato, args));
+        return condicion;
+    }
+}